@@ -2,7 +2,9 @@ package com.notes.config;
 
 import com.notes.entity.User;
 import com.notes.repository.UserRepository;
+import com.notes.service.DemoUserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
@@ -16,19 +18,28 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private DemoUserService demoUserService;
+
+    @Value("${demo.password:password123}")
+    private String demoPassword;
+
     @Override
     public void run(String... args) throws Exception {
-        // Create demo user if it doesn't exist
-        // Note: Demo user data (boards and notes) will be created dynamically on login
+        // Create demo user if it doesn't exist; the row only reserves the email,
+        // demo sessions keep their boards and notes in in-memory sandboxes
         User demoUser = userRepository.findByEmail("demo@example.com")
                 .orElseGet(() -> {
                     User user = new User();
                     user.setEmail("demo@example.com");
-                    user.setPassword(passwordEncoder.encode("password123"));
+                    user.setPassword(passwordEncoder.encode(demoPassword));
                     User saved = userRepository.save(user);
-                    System.out.println("Demo user created: demo@example.com / password123");
+                    System.out.println("Demo user created: demo@example.com");
                     return saved;
                 });
+
+        // Remove boards and notes left behind by the old shared demo account
+        demoUserService.cleanupDemoUserData();
     }
 
 }
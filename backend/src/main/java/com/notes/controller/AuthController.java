@@ -2,15 +2,30 @@ package com.notes.controller;
 
 import com.notes.dto.LoginRequest;
 import com.notes.dto.LoginResponse;
+import com.notes.dto.RefreshTokenRequest;
 import com.notes.dto.RegisterRequest;
 import com.notes.dto.RegisterResponse;
 import com.notes.entity.User;
 import com.notes.repository.UserRepository;
+import com.notes.security.AuthenticatedUser;
 import com.notes.security.JwtUtil;
+import com.notes.security.PasswordHashingBusyException;
+import com.notes.security.TokenRevocationList;
+import com.notes.security.VerifiedToken;
+import com.notes.security.UserCache;
+import com.notes.service.DemoSandbox;
+import com.notes.service.DemoSandboxStore;
 import com.notes.service.DemoUserService;
+import com.notes.service.InvalidationBus;
+import com.notes.service.RefreshTokenService;
+import com.notes.service.UserRegisteredEvent;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -19,8 +34,11 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -44,12 +62,41 @@ public class AuthController {
     
     @Autowired
     private DemoUserService demoUserService;
+    
+    @Autowired
+    private UserCache userCache;
+    
+    @Autowired
+    private DemoSandboxStore demoSandboxStore;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+    
+    @Autowired
+    private TokenRevocationList revocationList;
+    
+    @Autowired
+    private InvalidationBus invalidationBus;
+    
+    @Value("${demo.password:password123}")
+    private String demoPassword;
+    
+    @Value("${demo.sandbox.ttl-minutes:120}")
+    private long demoSessionMinutes;
 
     
     @PostMapping("/login")
 
     public ResponseEntity<?> login(@Valid @RequestBody LoginRequest loginRequest) {
         try {
+            // Demo logins get a private in-memory sandbox; no password hashing or database access
+            if (demoUserService.isDemoUser(loginRequest.getEmail())) {
+                return loginToDemoSandbox(loginRequest);
+            }
+            
             Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                     loginRequest.getEmail(),
@@ -58,15 +105,13 @@ public class AuthController {
             );
             
             SecurityContextHolder.getContext().setAuthentication(authentication);
-            String jwt = jwtUtil.generateToken(authentication.getName());
-            
-            // Initialize demo user data if this is the demo user
-            if (demoUserService.isDemoUser(authentication.getName())) {
-                demoUserService.initializeDemoUserData();
-            }
+            AuthenticatedUser principal = (AuthenticatedUser) authentication.getPrincipal();
+            String jwt = jwtUtil.generateToken(principal.getEmail(), principal.getId());
+            String refreshToken = refreshTokenService.issue(principal.getId());
             
             LoginResponse response = new LoginResponse(
                 jwt,
+                refreshToken,
                 authentication.getName(),
                 "Login successful"
             );
@@ -77,19 +122,46 @@ public class AuthController {
         } catch (BadCredentialsException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(new ErrorResponse("Invalid email or password"));
+        } catch (PasswordHashingBusyException e) {
+            return serviceBusy(e, new ErrorResponse("Too many sign-in attempts, please retry shortly"));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ErrorResponse("An error occurred during login"));
         }
     }
     
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@Valid @RequestBody RefreshTokenRequest refreshRequest) {
+        return refreshTokenService.rotate(refreshRequest.getRefreshToken())
+                .<ResponseEntity<?>>map(rotated -> ResponseEntity.ok(new LoginResponse(
+                        jwtUtil.generateToken(rotated.email(), rotated.userId()),
+                        rotated.refreshToken(),
+                        rotated.email(),
+                        "Token refreshed")))
+                .orElse(ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(new ErrorResponse("Invalid or expired refresh token")));
+    }
+    
     @PostMapping("/logout")
-    public ResponseEntity<?> logout() {
+    public ResponseEntity<?> logout(HttpServletRequest request,
+                                    @RequestBody(required = false) RefreshTokenRequest logoutRequest) {
         // Get current authentication before clearing
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication != null && demoUserService.isDemoUser(authentication.getName())) {
-            // Clean up demo user data on logout
-            demoUserService.cleanupDemoUserData();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser principal) {
+            if (DemoSandboxStore.isSandboxUser(principal.toUser())) {
+                // Drop the demo session's sandbox on logout; its token stops working with it
+                demoSandboxStore.remove(principal.getId());
+            } else {
+                // Revoke the access token for the rest of its lifetime, and the refresh token if one was sent
+                VerifiedToken accessToken = jwtUtil.verifyToken(getBearerToken(request));
+                if (accessToken != null) {
+                    revocationList.revoke(accessToken.getTokenId(), accessToken.getExpiresAtMillis());
+                    invalidationBus.tokenRevoked(accessToken.getTokenId(), accessToken.getExpiresAtMillis());
+                }
+                if (logoutRequest != null && StringUtils.hasText(logoutRequest.getRefreshToken())) {
+                    refreshTokenService.revoke(logoutRequest.getRefreshToken(), principal.getId());
+                }
+            }
         }
         
         SecurityContextHolder.clearContext();
@@ -121,14 +193,19 @@ public class AuthController {
             
             // Save user to database
             User savedUser = userRepository.save(newUser);
+            userCache.evict(savedUser.getEmail());
+            invalidationBus.userChanged(savedUser.getId(), savedUser.getEmail());
             
-            // Initialize default data for regular users (one-time only, not for demo user)
-            demoUserService.initializeUserData(savedUser);
+            // Default data is seeded in the background once the user row has committed
+            eventPublisher.publishEvent(new UserRegisteredEvent(
+                    savedUser.getId(), savedUser.getEmail(), System.currentTimeMillis()));
             
             return ResponseEntity.status(HttpStatus.CREATED)
                     .body(new RegisterResponse(true, "Account created successfully", savedUser.getEmail()));
 
             
+        } catch (PasswordHashingBusyException e) {
+            return serviceBusy(e, new RegisterResponse(false, "Too many sign-up attempts, please retry shortly"));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new RegisterResponse(false, "An error occurred during registration"));
@@ -136,6 +213,36 @@ public class AuthController {
     }
 
     
+    private ResponseEntity<?> serviceBusy(PasswordHashingBusyException e, Object body) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(body);
+    }
+    
+    private ResponseEntity<?> loginToDemoSandbox(LoginRequest loginRequest) {
+        boolean passwordMatches = MessageDigest.isEqual(
+                demoPassword.getBytes(StandardCharsets.UTF_8),
+                loginRequest.getPassword().getBytes(StandardCharsets.UTF_8));
+        if (!passwordMatches) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new ErrorResponse("Invalid email or password"));
+        }
+        
+        // Demo tokens live as long as the sandbox and are not refreshable; removing the sandbox invalidates them
+        DemoSandbox sandbox = demoSandboxStore.create(loginRequest.getEmail());
+        String jwt = jwtUtil.generateToken(loginRequest.getEmail(), sandbox.getUser().getId(),
+                demoSessionMinutes * 60_000L, sandbox.getSessionId());
+        return ResponseEntity.ok(new LoginResponse(jwt, loginRequest.getEmail(), "Login successful"));
+    }
+    
+    private String getBearerToken(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (StringUtils.hasText(header) && header.startsWith("Bearer ")) {
+            return header.substring(7);
+        }
+        return null;
+    }
+    
     // Inner classes for simple responses
     public static class ErrorResponse {
         private String error;
@@ -1,19 +1,23 @@
 package com.notes.controller;
 
+import com.notes.dto.BoardOverview;
+import com.notes.dto.BoardSummary;
 import com.notes.entity.Board;
 import com.notes.entity.User;
+import com.notes.service.BoardOverviewService;
 import com.notes.service.BoardService;
-import com.notes.repository.UserRepository;
+import com.notes.security.AuthenticatedUser;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Map;
+import java.util.OptionalLong;
 
 @RestController
 @RequestMapping("/api/boards")
@@ -21,36 +25,85 @@ import java.util.Map;
 public class BoardController {
     
     private final BoardService boardService;
-    private final UserRepository userRepository;
+    private final BoardOverviewService boardOverviewService;
     
     @Autowired
-    public BoardController(BoardService boardService, UserRepository userRepository) {
+    public BoardController(BoardService boardService, BoardOverviewService boardOverviewService) {
         this.boardService = boardService;
-        this.userRepository = userRepository;
+        this.boardOverviewService = boardOverviewService;
     }
     
     private User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication != null && authentication.getPrincipal() instanceof UserDetails) {
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            return userRepository.findByEmail(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser) {
+            return ((AuthenticatedUser) authentication.getPrincipal()).toUser();
         }
         throw new RuntimeException("No authenticated user found");
     }
     
     @GetMapping
-    public ResponseEntity<List<Board>> getAllBoards() {
+    public ResponseEntity<?> getAllBoards(@RequestParam(defaultValue = "false") boolean includeNotes,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         User currentUser = getCurrentUser();
-        List<Board> boards = boardService.getAllBoardsByUser(currentUser);
-        return new ResponseEntity<>(boards, HttpStatus.OK);
+        OptionalLong version = boardService.getBoardListVersion(currentUser);
+        String etag = null;
+        if (version.isPresent()) {
+            etag = includeNotes
+                    ? ETags.of("u" + currentUser.getId(), "s" + version.getAsLong(), "notes")
+                    : ETags.of("u" + currentUser.getId(), "s" + version.getAsLong());
+            if (ETags.matches(ifNoneMatch, etag)) {
+                return ETags.notModified(etag);
+            }
+        }
+        if (includeNotes) {
+            List<Board> boards = boardService.getAllBoardsByUser(currentUser);
+            return ETags.ok(boards, etag);
+        }
+        List<BoardSummary> boards = boardService.getBoardSummariesByUser(currentUser);
+        return ETags.ok(boards, etag);
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<Board> getBoardById(@PathVariable Long id) {
+    public ResponseEntity<?> getBoardById(@PathVariable Long id,
+                                          @RequestParam(defaultValue = "false") boolean includeNotes,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         User currentUser = getCurrentUser();
+        OptionalLong version = boardService.getBoardVersion(id, currentUser);
+        String etag = null;
+        if (version.isPresent()) {
+            etag = includeNotes
+                    ? ETags.of("b" + id, "v" + version.getAsLong(), "notes")
+                    : ETags.of("b" + id, "v" + version.getAsLong());
+            if (ETags.matches(ifNoneMatch, etag)) {
+                return ETags.notModified(etag);
+            }
+        }
+        String tag = etag;
+        if (includeNotes) {
+            return boardService.getBoardById(id, currentUser)
+                    .map(board -> ETags.ok((Object) board, tag))
+                    .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        }
+        return boardService.getBoardSummaryById(id, currentUser)
+                .map(board -> ETags.ok((Object) board, tag))
+                .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+    
+    /**
+     * Aggregated tiles of the board for zoomed-out rendering; zoom z returns at most 4^z tiles
+     */
+    @GetMapping("/{id}/overview")
+    public ResponseEntity<?> getBoardOverview(@PathVariable Long id, @RequestParam(defaultValue = "3") int zoom) {
+        User currentUser = getCurrentUser();
+        if (zoom < 0 || zoom > boardOverviewService.getMaxZoom()) {
+            return new ResponseEntity<>("zoom must be between 0 and " + boardOverviewService.getMaxZoom(),
+                    HttpStatus.BAD_REQUEST);
+        }
         return boardService.getBoardById(id, currentUser)
-                .map(board -> new ResponseEntity<>(board, HttpStatus.OK))
+                .map(board -> {
+                    BoardOverview overview = boardOverviewService.getOverview(board, currentUser, zoom);
+                    return new ResponseEntity<>(overview, HttpStatus.OK);
+                })
                 .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
     
@@ -0,0 +1,71 @@
+package com.notes.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Strong ETags for responses derived from a version counter, and the If-None-Match check.
+ * Tagged responses are marked private, no-cache, so browsers keep them and revalidate each time.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * Quoted entity tag made of the given parts, e.g. "n12-v7"
+     */
+    static String of(Object... parts) {
+        StringBuilder tag = new StringBuilder("\"");
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                tag.append('-');
+            }
+            tag.append(parts[i]);
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * True if the If-None-Match header lists the tag; uses the weak comparison RFC 9110 requires for it
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*")) {
+                return true;
+            }
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .build();
+    }
+
+    /**
+     * 200 response with the tag, or without one when the resource is not versioned (etag is null)
+     */
+    static <T> ResponseEntity<T> ok(T body, String etag) {
+        if (etag == null) {
+            return new ResponseEntity<>(body, HttpStatus.OK);
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(body);
+    }
+}
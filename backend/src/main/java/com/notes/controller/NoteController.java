@@ -1,22 +1,35 @@
 package com.notes.controller;
 
+import com.notes.dto.ChangeCursor;
+import com.notes.dto.NoteChanges;
+import com.notes.dto.NoteCursor;
+import com.notes.dto.NoteGeometryRequest;
+import com.notes.dto.NotePage;
+import com.notes.dto.NoteSort;
+import com.notes.dto.NoteView;
 import com.notes.entity.Board;
 import com.notes.entity.Note;
 import com.notes.entity.User;
 import com.notes.service.BoardService;
+import com.notes.service.ChangeFeedService;
+import com.notes.service.NoteSearchService;
 import com.notes.service.NoteService;
-import com.notes.repository.UserRepository;
+import com.notes.security.AuthenticatedUser;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 
 @RestController
@@ -26,56 +39,132 @@ public class NoteController {
     
     private final NoteService noteService;
     private final BoardService boardService;
-    private final UserRepository userRepository;
+    private final NoteSearchService noteSearchService;
+    private final ChangeFeedService changeFeedService;
     
     @Autowired
-    public NoteController(NoteService noteService, BoardService boardService, UserRepository userRepository) {
+    public NoteController(NoteService noteService, BoardService boardService, NoteSearchService noteSearchService,
+                          ChangeFeedService changeFeedService) {
         this.noteService = noteService;
         this.boardService = boardService;
-        this.userRepository = userRepository;
+        this.noteSearchService = noteSearchService;
+        this.changeFeedService = changeFeedService;
     }
 
     
     private User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication != null && authentication.getPrincipal() instanceof UserDetails) {
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            return userRepository.findByEmail(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser) {
+            return ((AuthenticatedUser) authentication.getPrincipal()).toUser();
         }
         throw new RuntimeException("No authenticated user found");
     }
     
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_SEARCH_RESULTS = 200;
+    
     @GetMapping
-    public ResponseEntity<List<Note>> getAllNotes(@RequestParam(required = false) Long boardId) {
+    public ResponseEntity<?> getAllNotes(@RequestParam(required = false) Long boardId,
+                                         @RequestParam(required = false) Double minX,
+                                         @RequestParam(required = false) Double minY,
+                                         @RequestParam(required = false) Double maxX,
+                                         @RequestParam(required = false) Double maxY,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                         @RequestParam(defaultValue = "createdAt") String sort,
+                                         @RequestParam(defaultValue = "asc") String direction,
+                                         @RequestParam(defaultValue = "false") boolean unpaged,
+                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         User currentUser = getCurrentUser();
-        List<Note> notes;
         
         if (boardId != null) {
+            boolean viewport = minX != null || minY != null || maxX != null || maxY != null;
+            // The bounds checks also reject NaN, which would pass minX > maxX
+            if (viewport && (minX == null || minY == null || maxX == null || maxY == null
+                    || !NoteGeometryRequest.isValid(minX, minY, null, null)
+                    || !NoteGeometryRequest.isValid(maxX, maxY, null, null)
+                    || minX > maxX || minY > maxY)) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            // Unchanged boards are answered from the in-memory board version, before the board or any note is loaded
+            OptionalLong version = boardService.getBoardVersion(boardId, currentUser);
+            String etag = null;
+            if (version.isPresent()) {
+                etag = viewport
+                        ? ETags.of("n" + boardId, "v" + version.getAsLong(), "vp" + minX + "_" + minY + "_" + maxX + "_" + maxY)
+                        : ETags.of("n" + boardId, "v" + version.getAsLong());
+                if (ETags.matches(ifNoneMatch, etag)) {
+                    return ETags.notModified(etag);
+                }
+            }
+            
             // Verify the board belongs to the current user
             Optional<Board> board = boardService.getBoardById(boardId, currentUser);
             if (board.isPresent()) {
-                notes = noteService.getAllNotesByBoardAndUser(board.get(), currentUser);
+                if (viewport) {
+                    // Only the notes intersecting the visible region of the canvas
+                    List<NoteView> notes = noteService.getNoteViewsInViewport(board.get(), currentUser, minX, minY, maxX, maxY);
+                    return ETags.ok(notes, etag);
+                }
+                List<NoteView> notes = noteService.getNoteViewsByBoardAndUser(board.get(), currentUser);
+                return ETags.ok(notes, etag);
             } else {
                 return new ResponseEntity<>(HttpStatus.FORBIDDEN);
             }
-        } else {
-            notes = noteService.getAllNotesByUser(currentUser);
         }
         
-        return new ResponseEntity<>(notes, HttpStatus.OK);
+        return listNotes(currentUser, cursor, limit, sort, direction, unpaged);
     }
 
+    /**
+     * Notes of the user across all boards, one keyset page at a time (pass nextCursor back as cursor).
+     * unpaged=true returns the whole list as before.
+     */
     @GetMapping("/all")
-    public ResponseEntity<List<Note>> getAllNotesForUser() {
-        User currentUser = getCurrentUser();
-        List<Note> notes = noteService.getAllNotesByUser(currentUser);
-        return new ResponseEntity<>(notes, HttpStatus.OK);
+    public ResponseEntity<?> getAllNotesForUser(@RequestParam(required = false) String cursor,
+                                                @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                                @RequestParam(defaultValue = "createdAt") String sort,
+                                                @RequestParam(defaultValue = "asc") String direction,
+                                                @RequestParam(defaultValue = "false") boolean unpaged) {
+        return listNotes(getCurrentUser(), cursor, limit, sort, direction, unpaged);
+    }
+    
+    private ResponseEntity<?> listNotes(User currentUser, String cursor, int limit,
+                                        String sort, String direction, boolean unpaged) {
+        if (unpaged) {
+            List<Note> notes = noteService.getAllNotesByUser(currentUser);
+            return new ResponseEntity<>(notes, HttpStatus.OK);
+        }
+        
+        NoteSort noteSort = NoteSort.fromParam(sort);
+        boolean descending = "desc".equalsIgnoreCase(direction);
+        if (noteSort == null || (!descending && !"asc".equalsIgnoreCase(direction))
+                || limit < 1 || limit > MAX_PAGE_SIZE) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        
+        NoteCursor after = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                after = NoteCursor.decode(cursor);
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            // A cursor only makes sense for the ordering it was issued for
+            if (after.sort() != noteSort || after.descending() != descending) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+        }
+        
+        NotePage page = noteService.getNotePage(currentUser, noteSort, descending, after, limit);
+        return new ResponseEntity<>(page, HttpStatus.OK);
     }
     
     @GetMapping("/{id}")
     public ResponseEntity<Note> getNoteById(@PathVariable Long id) {
-        return noteService.getNoteById(id)
+        User currentUser = getCurrentUser();
+        return noteService.getNoteById(id, currentUser)
                 .map(note -> new ResponseEntity<>(note, HttpStatus.OK))
                 .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
@@ -136,6 +225,20 @@ public class NoteController {
             note.setHeight(((Number) height).doubleValue());
         }
         
+        if (!NoteGeometryRequest.isValid(note.getPositionX(), note.getPositionY(), note.getWidth(), note.getHeight())) {
+            return new ResponseEntity<>("Position or size out of range", HttpStatus.BAD_REQUEST);
+        }
+        
+        // "position": "auto" moves the note to the free spot nearest to the requested (or default) position
+        if ("auto".equals(request.get("position"))) {
+            double[] spot = noteService.findFreeSpot(board.get(), currentUser,
+                    note.getPositionX(), note.getPositionY(),
+                    note.getWidth() != null ? note.getWidth() : 0,
+                    note.getHeight() != null ? note.getHeight() : 0);
+            note.setPositionX(spot[0]);
+            note.setPositionY(spot[1]);
+        }
+        
         @SuppressWarnings("unchecked")
         List<String> tags = (List<String>) request.get("tags");
         if (tags != null) {
@@ -151,8 +254,25 @@ public class NoteController {
 
 
     
+    /**
+     * Lay out all notes of the board in rows without overlaps and return them at their new positions
+     */
+    @PostMapping("/tidy")
+    public ResponseEntity<?> tidyUpBoard(@RequestParam Long boardId) {
+        User currentUser = getCurrentUser();
+        Optional<Board> board = boardService.getBoardById(boardId, currentUser);
+        if (!board.isPresent()) {
+            return new ResponseEntity<>("Board not found or access denied", HttpStatus.FORBIDDEN);
+        }
+        List<NoteView> notes = noteService.tidyUpBoard(board.get(), currentUser);
+        return new ResponseEntity<>(notes, HttpStatus.OK);
+    }
+    
     @PutMapping("/{id}")
     public ResponseEntity<Note> updateNote(@PathVariable Long id, @RequestBody Note note) {
+        if (!NoteGeometryRequest.isValid(note.getPositionX(), note.getPositionY(), note.getWidth(), note.getHeight())) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
         User currentUser = getCurrentUser();
         Note updatedNote = noteService.updateNote(id, note, currentUser);
         if (updatedNote != null) {
@@ -162,6 +282,22 @@ public class NoteController {
     }
 
     
+    @PatchMapping("/{id}/geometry")
+    public ResponseEntity<Void> updateNoteGeometry(@PathVariable Long id, @Valid @RequestBody NoteGeometryRequest geometry) {
+        if (geometry == null || geometry.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        User currentUser = getCurrentUser();
+        boolean updated = noteService.updateNoteGeometry(id, geometry, currentUser);
+        if (updated) {
+            // Buffered updates are only acknowledged (the note was found and owned), not yet written
+            HttpStatus status = noteService.isGeometryWriteBehindEnabled() ? HttpStatus.ACCEPTED : HttpStatus.NO_CONTENT;
+            return new ResponseEntity<>(status);
+        }
+        return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+
+    
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteNote(@PathVariable Long id) {
         User currentUser = getCurrentUser();
@@ -174,10 +310,59 @@ public class NoteController {
 
     
     @GetMapping("/filter")
-    public ResponseEntity<List<Note>> getNotesByTag(@RequestParam String tag) {
+    public ResponseEntity<List<Note>> getNotesByTag(@RequestParam(required = false) String tag,
+                                                    @RequestParam(required = false) List<String> tags,
+                                                    @RequestParam(defaultValue = "any") String match,
+                                                    @RequestParam(required = false) Long boardId) {
         User currentUser = getCurrentUser();
-        List<Note> notes = noteService.getNotesByTag(tag, currentUser);
+        
+        List<String> requestedTags = new ArrayList<>();
+        if (tag != null && !tag.isBlank()) {
+            requestedTags.add(tag);
+        }
+        if (tags != null) {
+            tags.stream().filter(t -> t != null && !t.isBlank()).forEach(requestedTags::add);
+        }
+        if (requestedTags.isEmpty() || !("any".equalsIgnoreCase(match) || "all".equalsIgnoreCase(match))) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        
+        List<Note> notes = noteService.getNotesByTags(requestedTags, "all".equalsIgnoreCase(match), boardId, currentUser);
         return new ResponseEntity<>(notes, HttpStatus.OK);
     }
+    
+    /**
+     * Ranked search over titles, content and tags; every word of q must match, the words as prefixes
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<NoteView>> searchNotes(@RequestParam String q,
+                                                      @RequestParam(required = false) Long boardId,
+                                                      @RequestParam(defaultValue = "50") int limit) {
+        if (q.isBlank() || limit < 1 || limit > MAX_SEARCH_RESULTS) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        User currentUser = getCurrentUser();
+        List<NoteView> notes = noteSearchService.search(currentUser, q, boardId, limit);
+        return new ResponseEntity<>(notes, HttpStatus.OK);
+    }
+    
+    /**
+     * Boards, notes and deletions changed since the cursor of the previous call; omit since for a full sync
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<NoteChanges> getChanges(@RequestParam(required = false) String since,
+                                                  @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        ChangeCursor cursor;
+        try {
+            cursor = since == null || since.isEmpty() ? ChangeCursor.START : ChangeCursor.decode(since);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        User currentUser = getCurrentUser();
+        return new ResponseEntity<>(changeFeedService.getChanges(currentUser, cursor, limit), HttpStatus.OK);
+    }
 
 }
@@ -0,0 +1,20 @@
+package com.notes.dto;
+
+import java.util.List;
+
+/**
+ * Level-of-detail view of a board: the board's extent split into gridSize x gridSize cells,
+ * with only the non-empty cells listed. version is the board version it was computed at.
+ */
+public record BoardOverview(
+        Long boardId,
+        long version,
+        int zoom,
+        int gridSize,
+        List<OverviewTile> tiles
+) {
+
+    public BoardOverview {
+        tiles = List.copyOf(tiles);
+    }
+}
@@ -0,0 +1,16 @@
+package com.notes.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Board listing entry without its notes. lastModifiedAt is the newest note
+ * timestamp on the board, or the board's own creation time when it is empty.
+ */
+public record BoardSummary(
+        Long id,
+        String name,
+        LocalDateTime createdAt,
+        long noteCount,
+        LocalDateTime lastModifiedAt
+) {
+}
@@ -0,0 +1,38 @@
+package com.notes.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a user's change feed: the change sequence, kind and id of the last change returned.
+ * Changes are ordered by (seq, kind, id), so several rows written with the same sequence value
+ * can still be split across pages. Sent to clients as an opaque URL-safe string.
+ */
+public record ChangeCursor(long seq, int kind, long id) {
+
+    public static final int KIND_BOARD = 0;
+    public static final int KIND_NOTE = 1;
+    public static final int KIND_TOMBSTONE = 2;
+
+    /**
+     * Before every change
+     */
+    public static final ChangeCursor START = new ChangeCursor(0, -1, 0);
+
+    public String encode() {
+        String raw = seq + ":" + kind + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parse a cursor; throws IllegalArgumentException if it is malformed
+     */
+    public static ChangeCursor decode(String encoded) {
+        String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+        String[] parts = raw.split(":");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return new ChangeCursor(Long.parseLong(parts[0]), Integer.parseInt(parts[1]), Long.parseLong(parts[2]));
+    }
+}
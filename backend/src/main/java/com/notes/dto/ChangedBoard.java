@@ -0,0 +1,9 @@
+package com.notes.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Board created or renamed since a change feed cursor
+ */
+public record ChangedBoard(Long id, String name, LocalDateTime createdAt, LocalDateTime updatedAt) {
+}
@@ -3,6 +3,7 @@ package com.notes.dto;
 public class LoginResponse {
     
     private String token;
+    private String refreshToken;
     private String type = "Bearer";
     private String email;
     private String message;
@@ -16,6 +17,11 @@ public class LoginResponse {
         this.message = message;
     }
     
+    public LoginResponse(String token, String refreshToken, String email, String message) {
+        this(token, email, message);
+        this.refreshToken = refreshToken;
+    }
+    
     public String getToken() {
         return token;
     }
@@ -24,6 +30,14 @@ public class LoginResponse {
         this.token = token;
     }
     
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+    
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+    
     public String getType() {
         return type;
     }
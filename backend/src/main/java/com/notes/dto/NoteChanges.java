@@ -0,0 +1,18 @@
+package com.notes.dto;
+
+import java.util.List;
+
+/**
+ * Changes of a user's notes and boards after a cursor, oldest first. Pass cursor back as since
+ * to continue; hasMore means another page is ready right away. reset means the given cursor was
+ * too old: drop all local state before applying this page, which starts from the beginning.
+ */
+public record NoteChanges(
+        List<ChangedBoard> boards,
+        List<NoteView> notes,
+        List<Tombstone> deleted,
+        String cursor,
+        boolean hasMore,
+        boolean reset
+) {
+}
@@ -0,0 +1,37 @@
+package com.notes.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position after the last note of a page: the sort key value and id of that note.
+ * Sent to clients as an opaque URL-safe string.
+ */
+public record NoteCursor(NoteSort sort, boolean descending, String value, long id) {
+
+    public static NoteCursor after(NoteView note, NoteSort sort, boolean descending) {
+        String value = sort == NoteSort.TITLE ? note.title() : note.createdAt().toString();
+        return new NoteCursor(sort, descending, value, note.id());
+    }
+
+    public String encode() {
+        String raw = sort.getParam() + ":" + (descending ? "desc" : "asc") + ":" + id + ":" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parse a cursor; throws IllegalArgumentException if it is malformed
+     */
+    public static NoteCursor decode(String encoded) {
+        String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+        String[] parts = raw.split(":", 4);
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        NoteSort sort = NoteSort.fromParam(parts[0]);
+        if (sort == null) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return new NoteCursor(sort, "desc".equals(parts[1]), parts[3], Long.parseLong(parts[2]));
+    }
+}
@@ -0,0 +1,91 @@
+package com.notes.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+
+public class NoteGeometryRequest {
+    
+    // Bounds of the canvas and of a single note; a width or height of 0 means the default size
+    public static final String MIN_COORDINATE = "-1000000";
+    public static final String MAX_COORDINATE = "1000000";
+    public static final String MAX_SIZE = "10000";
+    
+    // NaN and infinities fail both bounds
+    @DecimalMin(value = MIN_COORDINATE, message = "Position is out of range")
+    @DecimalMax(value = MAX_COORDINATE, message = "Position is out of range")
+    private Double positionX;
+    
+    @DecimalMin(value = MIN_COORDINATE, message = "Position is out of range")
+    @DecimalMax(value = MAX_COORDINATE, message = "Position is out of range")
+    private Double positionY;
+    
+    @DecimalMin(value = "0", message = "Size is out of range")
+    @DecimalMax(value = MAX_SIZE, message = "Size is out of range")
+    private Double width;
+    
+    @DecimalMin(value = "0", message = "Size is out of range")
+    @DecimalMax(value = MAX_SIZE, message = "Size is out of range")
+    private Double height;
+    
+    public NoteGeometryRequest() {
+    }
+    
+    public NoteGeometryRequest(Double positionX, Double positionY, Double width, Double height) {
+        this.positionX = positionX;
+        this.positionY = positionY;
+        this.width = width;
+        this.height = height;
+    }
+    
+    public boolean isEmpty() {
+        return positionX == null && positionY == null && width == null && height == null;
+    }
+    
+    /**
+     * Same bounds as the annotations above, for values that do not arrive in this request (null is valid)
+     */
+    public static boolean isValidCoordinate(Double value) {
+        return value == null || (Double.isFinite(value)
+                && value >= Double.parseDouble(MIN_COORDINATE) && value <= Double.parseDouble(MAX_COORDINATE));
+    }
+    
+    public static boolean isValidSize(Double value) {
+        return value == null || (Double.isFinite(value) && value >= 0 && value <= Double.parseDouble(MAX_SIZE));
+    }
+    
+    public static boolean isValid(Double positionX, Double positionY, Double width, Double height) {
+        return isValidCoordinate(positionX) && isValidCoordinate(positionY) && isValidSize(width) && isValidSize(height);
+    }
+    
+    public Double getPositionX() {
+        return positionX;
+    }
+    
+    public void setPositionX(Double positionX) {
+        this.positionX = positionX;
+    }
+    
+    public Double getPositionY() {
+        return positionY;
+    }
+    
+    public void setPositionY(Double positionY) {
+        this.positionY = positionY;
+    }
+    
+    public Double getWidth() {
+        return width;
+    }
+    
+    public void setWidth(Double width) {
+        this.width = width;
+    }
+    
+    public Double getHeight() {
+        return height;
+    }
+    
+    public void setHeight(Double height) {
+        this.height = height;
+    }
+}
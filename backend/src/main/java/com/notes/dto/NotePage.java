@@ -0,0 +1,9 @@
+package com.notes.dto;
+
+import java.util.List;
+
+/**
+ * One page of a note listing. nextCursor is null on the last page.
+ */
+public record NotePage(List<NoteView> items, String nextCursor) {
+}
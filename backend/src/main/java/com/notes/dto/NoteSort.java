@@ -0,0 +1,38 @@
+package com.notes.dto;
+
+/**
+ * Sort keys for paged note listings. Every key is paired with the note id as tie-breaker,
+ * matching the (user_id, column, id) indexes in init.sql.
+ */
+public enum NoteSort {
+    CREATED_AT("createdAt", "created_at"),
+    TITLE("title", "title");
+
+    private final String param;
+    private final String column;
+
+    NoteSort(String param, String column) {
+        this.param = param;
+        this.column = column;
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Sort key for a request parameter, or null if it is not supported
+     */
+    public static NoteSort fromParam(String param) {
+        for (NoteSort sort : values()) {
+            if (sort.param.equalsIgnoreCase(param)) {
+                return sort;
+            }
+        }
+        return null;
+    }
+}
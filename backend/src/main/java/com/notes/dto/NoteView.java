@@ -0,0 +1,46 @@
+package com.notes.dto;
+
+import com.notes.entity.Note;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Read-only view of a note used for board loads. Built straight from a JDBC row,
+ * so it is never attached to a persistence context.
+ * Width and height are 0 when the note has no explicit size.
+ */
+public record NoteView(
+        Long id,
+        String title,
+        String content,
+        double positionX,
+        double positionY,
+        double width,
+        double height,
+        String color,
+        LocalDateTime createdAt,
+        List<String> tags,
+        Long boardId
+) {
+
+    public NoteView {
+        tags = tags != null ? List.copyOf(tags) : List.of();
+    }
+
+    public static NoteView of(Note note) {
+        return new NoteView(
+                note.getId(),
+                note.getTitle(),
+                note.getContent(),
+                note.getPositionX() != null ? note.getPositionX() : 0,
+                note.getPositionY() != null ? note.getPositionY() : 0,
+                note.getWidth() != null ? note.getWidth() : 0,
+                note.getHeight() != null ? note.getHeight() : 0,
+                note.getColor(),
+                note.getCreatedAt(),
+                List.copyOf(note.getTags()),
+                note.getBoardId()
+        );
+    }
+}
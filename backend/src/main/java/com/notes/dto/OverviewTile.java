@@ -0,0 +1,17 @@
+package com.notes.dto;
+
+/**
+ * Aggregate of the notes whose top-left corner falls into one cell of a board overview grid.
+ * The bounding box covers the full extent of those notes; dominantColor is null when none has a color.
+ */
+public record OverviewTile(
+        int column,
+        int row,
+        long noteCount,
+        String dominantColor,
+        double minX,
+        double minY,
+        double maxX,
+        double maxY
+) {
+}
@@ -0,0 +1,13 @@
+package com.notes.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Deleted note or board. type is "NOTE" or "BOARD"; a deleted board takes all of its notes with it,
+ * and boardId is the board a deleted note was on.
+ */
+public record Tombstone(String type, Long id, Long boardId, LocalDateTime deletedAt) {
+
+    public static final String NOTE = "NOTE";
+    public static final String BOARD = "BOARD";
+}
@@ -4,17 +4,23 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 
+// Cached in the second-level cache by id (region in ehcache.xml); the notes collection is not cached
 @Entity
 @Table(name = "boards")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Board {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "boards_seq")
+    @SequenceGenerator(name = "boards_seq", sequenceName = "boards_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -34,8 +40,15 @@ public class Board {
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
     
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    // boards.change_seq is deliberately not mapped: it would go stale in the second-level cache.
+    // Inserts take the column default and updates set it through ChangeFeedRepository.markBoardChanged.
+    
     public Board() {
         this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
         this.notes = new ArrayList<>();
     }
     
@@ -85,4 +98,12 @@ public class Board {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
 }
@@ -4,10 +4,12 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.SQLOrder;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 
 
@@ -15,8 +17,10 @@ import java.util.List;
 @Table(name = "notes")
 public class Note {
     
+    // Pooled sequence ids keep JDBC insert batching possible; allocationSize must match INCREMENT BY in init.sql
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notes_seq")
+    @SequenceGenerator(name = "notes_seq", sequenceName = "notes_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -42,13 +46,24 @@ public class Note {
     private String color;
 
     
+    // A Set lets Hibernate write tag changes row by row instead of deleting and re-inserting the whole collection;
+    // note_tags.seq is filled on insert, so ordering by it keeps the tags in the order they were added
     @ElementCollection
     @CollectionTable(name = "note_tags", joinColumns = @JoinColumn(name = "note_id"))
     @Column(name = "tag")
-    private List<String> tags;
+    @SQLOrder("seq")
+    private Set<String> tags;
     
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    // Position in the owner's change feed; inserts take the column default, updates set it explicitly
+    @Column(name = "change_seq", insertable = false)
+    @JsonIgnore
+    private Long changeSeq;
 
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -68,8 +83,9 @@ public class Note {
     public Note() {
 
         this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
         this.color = "#fef3c7"; // Default yellow color
-        this.tags = new ArrayList<>();
+        this.tags = new LinkedHashSet<>();
     }
 
     
@@ -155,12 +171,28 @@ public class Note {
         this.createdAt = createdAt;
     }
     
-    public List<String> getTags() {
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+    
+    public void setChangeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+    
+    public Set<String> getTags() {
         return tags;
     }
     
-    public void setTags(List<String> tags) {
-        this.tags = tags;
+    public void setTags(Collection<String> tags) {
+        this.tags = tags != null ? new LinkedHashSet<>(tags) : new LinkedHashSet<>();
     }
     
     public User getUser() {
@@ -0,0 +1,11 @@
+package com.notes.exception;
+
+/**
+ * Thrown when a demo session's sandbox was evicted while one of its requests was being handled
+ */
+public class DemoSessionExpiredException extends RuntimeException {
+    
+    public DemoSessionExpiredException() {
+        super("Demo session expired");
+    }
+}
@@ -40,6 +40,15 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
     
+    @ExceptionHandler(DemoSessionExpiredException.class)
+    public ResponseEntity<Map<String, Object>> handleDemoSessionExpired(DemoSessionExpiredException ex) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Demo session expired");
+        response.put("error", "Please sign in to the demo again");
+        
+        return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+    }
+    
     @ExceptionHandler(SecurityException.class)
     public ResponseEntity<Map<String, Object>> handleSecurityException(SecurityException ex) {
         logger.error("Security exception occurred: {}", ex.getMessage());
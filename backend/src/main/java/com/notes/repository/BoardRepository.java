@@ -1,8 +1,12 @@
 package com.notes.repository;
 
+import com.notes.dto.BoardSummary;
 import com.notes.entity.Board;
 import com.notes.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,12 +18,35 @@ public interface BoardRepository extends JpaRepository<Board, Long> {
     
     List<Board> findByUserOrderByCreatedAtAsc(User user);
     
+    @Query("SELECT new com.notes.dto.BoardSummary(b.id, b.name, b.createdAt, COUNT(n), " +
+           "COALESCE(MAX(n.createdAt), b.createdAt)) " +
+           "FROM Board b LEFT JOIN b.notes n " +
+           "WHERE b.user.id = :userId " +
+           "GROUP BY b.id, b.name, b.createdAt " +
+           "ORDER BY b.createdAt ASC")
+    List<BoardSummary> findSummariesByUserId(@Param("userId") Long userId);
+    
+    @Query("SELECT new com.notes.dto.BoardSummary(b.id, b.name, b.createdAt, COUNT(n), " +
+           "COALESCE(MAX(n.createdAt), b.createdAt)) " +
+           "FROM Board b LEFT JOIN b.notes n " +
+           "WHERE b.id = :id AND b.user.id = :userId " +
+           "GROUP BY b.id, b.name, b.createdAt")
+    Optional<BoardSummary> findSummaryByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+    
     long countByUser(User user);
     
     boolean existsByNameAndUser(String name, User user);
     
     Optional<Board> findByNameAndUser(String name, User user);
     
+    // Notes and their tags are removed by ON DELETE CASCADE
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Board b WHERE b.id = :id AND b.user.id = :userId")
+    int deleteByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+    
+    @Modifying
     @Transactional
-    void deleteAllByUser(User user);
+    @Query("DELETE FROM Board b WHERE b.user.id = :userId")
+    int deleteAllByUserId(@Param("userId") Long userId);
 }
@@ -0,0 +1,70 @@
+package com.notes.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The persisted boards.version counters. Increments run inside the writing transaction,
+ * so a version only becomes visible together with the change that produced it.
+ */
+@Repository
+public class BoardVersionRepository {
+
+    private static final String FIND_VERSION =
+            "SELECT user_id, version FROM boards WHERE id = ?";
+
+    private static final String INCREMENT =
+            "UPDATE boards SET version = version + 1 WHERE id = ? RETURNING version";
+
+    private static final String INCREMENT_BOARDS_OF_NOTES =
+            "UPDATE boards SET version = version + 1 " +
+            "WHERE id IN (SELECT board_id FROM notes WHERE id = ANY(?)) " +
+            "RETURNING id, version";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public BoardVersionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Owner and current version of the board, or null if it does not exist
+     */
+    public BoardVersion find(Long boardId) {
+        List<BoardVersion> rows = jdbcTemplate.query(FIND_VERSION,
+                (rs, rowNum) -> new BoardVersion(rs.getLong("user_id"), rs.getLong("version")), boardId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * Increment the board's version; returns the new version, or null if the board does not exist
+     */
+    public Long increment(Long boardId) {
+        List<Long> rows = jdbcTemplate.queryForList(INCREMENT, Long.class, boardId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * Increment the version of every board holding one of the notes, once per board;
+     * returns the new version by board id
+     */
+    public Map<Long, Long> incrementBoardsOfNotes(Collection<Long> noteIds) {
+        Long[] ids = noteIds.toArray(Long[]::new);
+        Map<Long, Long> versions = new HashMap<>();
+        jdbcTemplate.query(INCREMENT_BOARDS_OF_NOTES,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)),
+                (RowCallbackHandler) rs -> versions.put(rs.getLong("id"), rs.getLong("version")));
+        return versions;
+    }
+
+    public record BoardVersion(long userId, long version) {
+    }
+}
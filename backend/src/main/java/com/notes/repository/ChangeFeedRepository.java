@@ -0,0 +1,181 @@
+package com.notes.repository;
+
+import com.notes.dto.ChangeCursor;
+import com.notes.dto.ChangedBoard;
+import com.notes.dto.NoteView;
+import com.notes.dto.Tombstone;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JDBC side of the change feed: change sequence allocation, tombstones, and the keyset reads
+ * behind delta sync. Every read walks one (user_id, change_seq, ...) index and stops after limit rows.
+ */
+@Repository
+public class ChangeFeedRepository {
+
+    // Takes the users row lock until commit, which orders one user's writes by change_seq
+    private static final String NEXT_CHANGE_SEQ =
+            "UPDATE users SET last_change_seq = nextval('change_seq') WHERE id = ? RETURNING last_change_seq";
+
+    // Written with JDBC rather than through the Board entity, which lives in the second-level cache
+    private static final String SET_BOARD_CHANGE_SEQ =
+            "UPDATE boards SET change_seq = ? WHERE id = ?";
+
+    private static final String FIND_LAST_CHANGE_SEQ =
+            "SELECT last_change_seq FROM users WHERE id = ?";
+
+    private static final String INSERT_TOMBSTONE =
+            "INSERT INTO change_tombstones (user_id, entity_type, entity_id, board_id, deleted_at) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String INSERT_BOARD_TOMBSTONES_OF_USER =
+            "INSERT INTO change_tombstones (user_id, entity_type, entity_id, board_id, deleted_at) " +
+            "SELECT user_id, '" + Tombstone.BOARD + "', id, id, ? FROM boards WHERE user_id = ?";
+
+    private static final String PURGE_TOMBSTONES =
+            "WITH purged AS (DELETE FROM change_tombstones WHERE deleted_at < ? RETURNING change_seq) " +
+            "UPDATE change_feed_horizon " +
+            "SET purged_through = GREATEST(purged_through, (SELECT COALESCE(MAX(change_seq), 0) FROM purged)) " +
+            "WHERE id = 1";
+
+    private static final String FIND_PURGED_THROUGH =
+            "SELECT purged_through FROM change_feed_horizon WHERE id = 1";
+
+    private static final String NOTE_COLUMNS =
+            "id, title, content, position_x, position_y, width, height, color, created_at, board_id, change_seq";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ChangeFeedRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Next change sequence value for a write by the user; must run inside the writing transaction
+     */
+    public long nextChangeSeq(Long userId) {
+        return jdbcTemplate.queryForObject(NEXT_CHANGE_SEQ, Long.class, userId);
+    }
+
+    public void markBoardChanged(Long boardId, long changeSeq) {
+        jdbcTemplate.update(SET_BOARD_CHANGE_SEQ, changeSeq, boardId);
+    }
+
+    /**
+     * Sequence value of the user's latest write, 0 if the user has not written anything yet
+     */
+    public long findLastChangeSeq(Long userId) {
+        List<Long> rows = jdbcTemplate.queryForList(FIND_LAST_CHANGE_SEQ, Long.class, userId);
+        return rows.isEmpty() ? 0 : rows.get(0);
+    }
+
+    public void recordNoteDeleted(Long userId, Long noteId, Long boardId) {
+        jdbcTemplate.update(INSERT_TOMBSTONE, userId, Tombstone.NOTE, noteId, boardId, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    public void recordBoardDeleted(Long userId, Long boardId) {
+        jdbcTemplate.update(INSERT_TOMBSTONE, userId, Tombstone.BOARD, boardId, boardId, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    public void recordAllBoardsDeleted(Long userId) {
+        jdbcTemplate.update(INSERT_BOARD_TOMBSTONES_OF_USER, Timestamp.valueOf(LocalDateTime.now()), userId);
+    }
+
+    /**
+     * Delete tombstones older than the cutoff and advance the purge horizon past them
+     */
+    public void purgeTombstonesBefore(LocalDateTime cutoff) {
+        jdbcTemplate.update(PURGE_TOMBSTONES, Timestamp.valueOf(cutoff));
+    }
+
+    public long findPurgedThrough() {
+        List<Long> rows = jdbcTemplate.queryForList(FIND_PURGED_THROUGH, Long.class);
+        return rows.isEmpty() ? 0 : rows.get(0);
+    }
+
+    public List<Change<ChangedBoard>> findBoardChanges(Long userId, ChangeCursor after, int limit) {
+        List<Object> params = new ArrayList<>();
+        params.add(userId);
+        String sql =
+                "SELECT id, name, created_at, updated_at, change_seq FROM boards " +
+                "WHERE user_id = ? AND " + after(after, ChangeCursor.KIND_BOARD, "id", params) +
+                " ORDER BY change_seq, id LIMIT ?";
+        params.add(limit);
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new Change<>(
+                rs.getLong("change_seq"), ChangeCursor.KIND_BOARD, rs.getLong("id"),
+                new ChangedBoard(
+                        rs.getLong("id"),
+                        rs.getString("name"),
+                        toLocalDateTime(rs.getTimestamp("created_at")),
+                        toLocalDateTime(rs.getTimestamp("updated_at")))),
+                params.toArray());
+    }
+
+    public List<Change<NoteView>> findNoteChanges(Long userId, ChangeCursor after, int limit) {
+        List<Object> params = new ArrayList<>();
+        params.add(userId);
+        String keyset = after(after, ChangeCursor.KIND_NOTE, "id", params);
+        params.add(limit);
+        // Tags are aggregated for the selected page only
+        String sql =
+                "SELECT p.*, array_agg(t.tag ORDER BY t.seq) FILTER (WHERE t.tag IS NOT NULL) AS tags " +
+                "FROM (SELECT " + NOTE_COLUMNS + " FROM notes " +
+                "      WHERE user_id = ? AND " + keyset +
+                "      ORDER BY change_seq, id LIMIT ?) p " +
+                "LEFT JOIN note_tags t ON t.note_id = p.id " +
+                "GROUP BY p." + NOTE_COLUMNS.replace(", ", ", p.") + " " +
+                "ORDER BY p.change_seq, p.id";
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new Change<>(
+                rs.getLong("change_seq"), ChangeCursor.KIND_NOTE, rs.getLong("id"),
+                NoteViewRepository.mapRow(rs, rowNum)),
+                params.toArray());
+    }
+
+    public List<Change<Tombstone>> findTombstones(Long userId, ChangeCursor after, int limit) {
+        List<Object> params = new ArrayList<>();
+        params.add(userId);
+        String sql =
+                "SELECT change_seq, entity_type, entity_id, board_id, deleted_at FROM change_tombstones " +
+                "WHERE user_id = ? AND " + after(after, ChangeCursor.KIND_TOMBSTONE, "change_seq", params) +
+                " ORDER BY change_seq LIMIT ?";
+        params.add(limit);
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new Change<>(
+                rs.getLong("change_seq"), ChangeCursor.KIND_TOMBSTONE, rs.getLong("change_seq"),
+                new Tombstone(
+                        rs.getString("entity_type"),
+                        rs.getLong("entity_id"),
+                        (Long) rs.getObject("board_id"),
+                        toLocalDateTime(rs.getTimestamp("deleted_at")))),
+                params.toArray());
+    }
+
+    // Rows of `kind` that come after the cursor in (change_seq, kind, id) order
+    private static String after(ChangeCursor cursor, int kind, String idColumn, List<Object> params) {
+        params.add(cursor.seq());
+        if (kind < cursor.kind()) {
+            return "change_seq > ?";
+        }
+        if (kind > cursor.kind()) {
+            return "change_seq >= ?";
+        }
+        params.add(cursor.id());
+        return "(change_seq, " + idColumn + ") > (?, ?)";
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    /**
+     * A row of the feed with its position
+     */
+    public record Change<T>(long seq, int kind, long id, T value) {
+    }
+}
@@ -10,7 +10,9 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface NoteRepository extends JpaRepository<Note, Long> {
@@ -22,11 +24,32 @@ public interface NoteRepository extends JpaRepository<Note, Long> {
 
     List<Note> findByBoardAndUser(Board board, User user);
 
-    @Transactional
-    void deleteAllByUser(User user);
-
+    boolean existsByIdAndUserId(Long id, Long userId);
+
+    @Query("SELECT n.board.id FROM Note n WHERE n.id = :id AND n.user.id = :userId")
+    Optional<Long> findBoardIdByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    // Notes of the user (optionally on one board) carrying at least one of the given tags
+    @Query("SELECT DISTINCT n FROM Note n JOIN n.tags t " +
+           "WHERE n.user.id = :userId AND (:boardId IS NULL OR n.board.id = :boardId) AND t IN :tags")
+    List<Note> findByUserAndAnyTag(@Param("userId") Long userId,
+                                   @Param("boardId") Long boardId,
+                                   @Param("tags") Collection<String> tags);
+
+    // Notes of the user (optionally on one board) carrying every one of the given tags
+    @Query("SELECT n FROM Note n WHERE n.id IN (" +
+           "SELECT tn.id FROM Note tn JOIN tn.tags t " +
+           "WHERE tn.user.id = :userId AND (:boardId IS NULL OR tn.board.id = :boardId) AND t IN :tags " +
+           "GROUP BY tn.id HAVING COUNT(DISTINCT t) = :tagCount)")
+    List<Note> findByUserAndAllTags(@Param("userId") Long userId,
+                                    @Param("boardId") Long boardId,
+                                    @Param("tags") Collection<String> tags,
+                                    @Param("tagCount") long tagCount);
+
+    // Deletes at most :limit notes of the user; callers repeat it until it returns 0 to keep transactions short
     @Modifying
     @Transactional
-    @Query(value = "DELETE FROM note_tags WHERE note_id = :noteId", nativeQuery = true)
-    void deleteTagsByNoteId(@Param("noteId") Long noteId);
+    @Query(value = "DELETE FROM notes WHERE id IN (SELECT id FROM notes WHERE user_id = :userId LIMIT :limit)",
+           nativeQuery = true)
+    int deleteChunkByUserId(@Param("userId") Long userId, @Param("limit") int limit);
 }
@@ -0,0 +1,246 @@
+package com.notes.repository;
+
+import com.notes.dto.NoteCursor;
+import com.notes.dto.NoteSort;
+import com.notes.dto.NoteView;
+import com.notes.dto.OverviewTile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * JDBC read path for board loads and paged listings: one statement returns the notes with
+ * their tags aggregated, without going through the entity manager. Bulk position writes
+ * that touch a whole board live here too, for the same reason.
+ */
+@Repository
+public class NoteViewRepository {
+
+    private static final String FIND_BY_BOARD_AND_USER =
+            "SELECT n.id, n.title, n.content, n.position_x, n.position_y, n.width, n.height, " +
+            "       n.color, n.created_at, n.board_id, " +
+            "       array_agg(t.tag ORDER BY t.seq) FILTER (WHERE t.tag IS NOT NULL) AS tags " +
+            "FROM notes n " +
+            "LEFT JOIN note_tags t ON t.note_id = n.id " +
+            "WHERE n.board_id = ? AND n.user_id = ? " +
+            "GROUP BY n.id " +
+            "ORDER BY n.id";
+
+    private static final String NOTE_COLUMNS =
+            "id, title, content, position_x, position_y, width, height, color, created_at, board_id";
+
+    private static final String FIND_GEOMETRY_BY_BOARD_AND_USER =
+            "SELECT id, position_x, position_y, width, height FROM notes WHERE board_id = ? AND user_id = ?";
+
+    private static final String FIND_BY_IDS_AND_USER =
+            "SELECT n.id, n.title, n.content, n.position_x, n.position_y, n.width, n.height, " +
+            "       n.color, n.created_at, n.board_id, " +
+            "       array_agg(t.tag ORDER BY t.seq) FILTER (WHERE t.tag IS NOT NULL) AS tags " +
+            "FROM notes n " +
+            "LEFT JOIN note_tags t ON t.note_id = n.id " +
+            "WHERE n.id = ANY(?) AND n.user_id = ? " +
+            "GROUP BY n.id " +
+            "ORDER BY n.id";
+
+    // Cells are assigned by top-left corner over the span of those corners; the last row and column are closed.
+    // The index is clamped while still double precision, so extreme (even infinite or NaN) spans cannot overflow ::int
+    private static final String AGGREGATE_TILES_BY_BOARD_AND_USER =
+            "WITH g AS (" +
+            "    SELECT position_x AS x1, position_y AS y1, " +
+            "           position_x + COALESCE(NULLIF(width, 0), ?) AS x2, " +
+            "           position_y + COALESCE(NULLIF(height, 0), ?) AS y2, color " +
+            "    FROM notes WHERE board_id = ? AND user_id = ?), " +
+            "b AS (" +
+            "    SELECT min(x1) AS min_x, min(y1) AS min_y, " +
+            "           GREATEST(max(x1) - min(x1), 1) AS span_x, GREATEST(max(y1) - min(y1), 1) AS span_y " +
+            "    FROM g) " +
+            "SELECT GREATEST(LEAST(FLOOR((g.x1 - b.min_x) / b.span_x * ?), ? - 1), 0)::int AS col_index, " +
+            "       GREATEST(LEAST(FLOOR((g.y1 - b.min_y) / b.span_y * ?), ? - 1), 0)::int AS row_index, " +
+            "       count(*) AS note_count, " +
+            "       mode() WITHIN GROUP (ORDER BY g.color) AS color, " +
+            "       min(g.x1) AS min_x, min(g.y1) AS min_y, max(g.x2) AS max_x, max(g.y2) AS max_y " +
+            "FROM g CROSS JOIN b " +
+            "GROUP BY col_index, row_index " +
+            "ORDER BY row_index, col_index";
+
+    private static final String FIND_SEARCH_DOCUMENTS_BY_USER =
+            "SELECT n.id, n.board_id, n.title, n.content, " +
+            "       array_agg(t.tag ORDER BY t.seq) FILTER (WHERE t.tag IS NOT NULL) AS tags " +
+            "FROM notes n " +
+            "LEFT JOIN note_tags t ON t.note_id = n.id " +
+            "WHERE n.user_id = ? " +
+            "GROUP BY n.id";
+
+    private static final String UPDATE_POSITIONS =
+            "UPDATE notes n SET position_x = v.x, position_y = v.y, change_seq = ?, updated_at = ? " +
+            "FROM unnest(?::bigint[], ?::float8[], ?::float8[]) AS v(id, x, y) " +
+            "WHERE n.id = v.id AND n.user_id = ?";
+
+    private static final RowMapper<NoteView> NOTE_VIEW_MAPPER = NoteViewRepository::mapRow;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public NoteViewRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<NoteView> findByBoardAndUser(Long boardId, Long userId) {
+        return jdbcTemplate.query(FIND_BY_BOARD_AND_USER, NOTE_VIEW_MAPPER, boardId, userId);
+    }
+
+    /**
+     * Notes of the user with the given ids, e.g. the result of a spatial index query
+     */
+    public List<NoteView> findByIdsAndUser(long[] ids, Long userId) {
+        Long[] boxedIds = Arrays.stream(ids).boxed().toArray(Long[]::new);
+        return jdbcTemplate.query(FIND_BY_IDS_AND_USER, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("bigint", boxedIds));
+            ps.setLong(2, userId);
+        }, NOTE_VIEW_MAPPER);
+    }
+
+    /**
+     * Stream the geometry of a board's notes without creating an object per row.
+     * Missing width and height are reported as 0.
+     */
+    public void forEachGeometryOnBoard(Long boardId, Long userId, GeometryConsumer consumer) {
+        jdbcTemplate.query(FIND_GEOMETRY_BY_BOARD_AND_USER,
+                (RowCallbackHandler) rs -> consumer.accept(
+                        rs.getLong("id"),
+                        rs.getDouble("position_x"),
+                        rs.getDouble("position_y"),
+                        rs.getDouble("width"),
+                        rs.getDouble("height")),
+                boardId, userId);
+    }
+
+    /**
+     * Overview tiles of a board in a single aggregate query; notes without a size count as
+     * defaultSize x defaultSize. At most gridSize * gridSize rows come back, whatever the note count.
+     */
+    public List<OverviewTile> aggregateTiles(Long boardId, Long userId, int gridSize, double defaultSize) {
+        return jdbcTemplate.query(AGGREGATE_TILES_BY_BOARD_AND_USER,
+                (rs, rowNum) -> new OverviewTile(
+                        rs.getInt("col_index"),
+                        rs.getInt("row_index"),
+                        rs.getLong("note_count"),
+                        rs.getString("color"),
+                        rs.getDouble("min_x"),
+                        rs.getDouble("min_y"),
+                        rs.getDouble("max_x"),
+                        rs.getDouble("max_y")),
+                defaultSize, defaultSize, boardId, userId, gridSize, gridSize, gridSize, gridSize);
+    }
+
+    /**
+     * Move many notes of the user in one statement, as one change; returns the number of rows updated
+     */
+    public int updatePositions(long[] ids, double[] x, double[] y, Long userId, long changeSeq) {
+        Long[] boxedIds = Arrays.stream(ids).boxed().toArray(Long[]::new);
+        Double[] boxedX = Arrays.stream(x).boxed().toArray(Double[]::new);
+        Double[] boxedY = Arrays.stream(y).boxed().toArray(Double[]::new);
+        return jdbcTemplate.update(UPDATE_POSITIONS, ps -> {
+            ps.setLong(1, changeSeq);
+            ps.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+            ps.setArray(3, ps.getConnection().createArrayOf("bigint", boxedIds));
+            ps.setArray(4, ps.getConnection().createArrayOf("float8", boxedX));
+            ps.setArray(5, ps.getConnection().createArrayOf("float8", boxedY));
+            ps.setLong(6, userId);
+        });
+    }
+
+    /**
+     * Stream the searchable text of every note of the user, for building a search index
+     */
+    public void forEachSearchDocument(Long userId, SearchDocumentConsumer consumer) {
+        jdbcTemplate.query(FIND_SEARCH_DOCUMENTS_BY_USER,
+                (RowCallbackHandler) rs -> consumer.accept(
+                        rs.getLong("id"),
+                        rs.getLong("board_id"),
+                        rs.getString("title"),
+                        rs.getString("content"),
+                        readTags(rs.getArray("tags"))),
+                userId);
+    }
+
+    @FunctionalInterface
+    public interface SearchDocumentConsumer {
+        void accept(long id, long boardId, String title, String content, List<String> tags);
+    }
+
+    @FunctionalInterface
+    public interface GeometryConsumer {
+        void accept(long id, double x, double y, double width, double height);
+    }
+
+    /**
+     * One keyset page of the user's notes, ordered by the sort column and id.
+     * The inner query walks the (user_id, column, id) index and stops after limit rows;
+     * tags are aggregated for that page only.
+     */
+    public List<NoteView> findPageByUser(Long userId, NoteSort sort, boolean descending, NoteCursor after, int limit) {
+        String column = sort.getColumn();
+        String direction = descending ? "DESC" : "ASC";
+        String order = column + " " + direction + ", id " + direction;
+
+        List<Object> params = new ArrayList<>();
+        params.add(userId);
+        String keyset = "";
+        if (after != null) {
+            keyset = " AND (n." + column + ", n.id) " + (descending ? "<" : ">") + " (?, ?)";
+            params.add(sort == NoteSort.CREATED_AT ? Timestamp.valueOf(LocalDateTime.parse(after.value())) : after.value());
+            params.add(after.id());
+        }
+        params.add(limit);
+
+        String sql =
+                "SELECT p.*, array_agg(t.tag ORDER BY t.seq) FILTER (WHERE t.tag IS NOT NULL) AS tags " +
+                "FROM (SELECT " + NOTE_COLUMNS + " FROM notes n " +
+                "      WHERE n.user_id = ?" + keyset +
+                "      ORDER BY " + order + " LIMIT ?) p " +
+                "LEFT JOIN note_tags t ON t.note_id = p.id " +
+                "GROUP BY p." + NOTE_COLUMNS.replace(", ", ", p.") + " " +
+                "ORDER BY p." + order.replace(", id", ", p.id");
+        return jdbcTemplate.query(sql, NOTE_VIEW_MAPPER, params.toArray());
+    }
+
+    static NoteView mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        return new NoteView(
+                rs.getLong("id"),
+                rs.getString("title"),
+                rs.getString("content"),
+                rs.getDouble("position_x"),
+                rs.getDouble("position_y"),
+                rs.getDouble("width"),
+                rs.getDouble("height"),
+                rs.getString("color"),
+                createdAt != null ? createdAt.toLocalDateTime() : null,
+                readTags(rs.getArray("tags")),
+                rs.getLong("board_id")
+        );
+    }
+
+    static List<String> readTags(Array array) throws SQLException {
+        if (array == null) {
+            return List.of();
+        }
+        try {
+            return Arrays.asList((String[]) array.getArray());
+        } finally {
+            array.free();
+        }
+    }
+}
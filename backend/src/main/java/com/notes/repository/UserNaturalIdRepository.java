@@ -0,0 +1,13 @@
+package com.notes.repository;
+
+import com.notes.entity.User;
+
+import java.util.Optional;
+
+/**
+ * Lookups of users by their natural id (email), answered from the second-level natural-id cache when possible
+ */
+public interface UserNaturalIdRepository {
+
+    Optional<User> findByEmail(String email);
+}
@@ -0,0 +1,46 @@
+package com.notes.repository;
+
+import com.notes.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+
+import java.util.Optional;
+
+/**
+ * A derived findByEmail query always goes to the database; loading by natural id lets Hibernate
+ * resolve email to id and id to entity from the second-level cache without any SQL.
+ */
+public class UserNaturalIdRepositoryImpl implements UserNaturalIdRepository {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    public UserNaturalIdRepositoryImpl(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        // Join the caller's persistence context if there is one, so the user comes back managed
+        EntityManager bound = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+        if (bound != null) {
+            return load(bound, email);
+        }
+        // Otherwise a short-lived one: a cache hit then needs neither a transaction nor a connection
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return load(entityManager, email);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private static Optional<User> load(EntityManager entityManager, String email) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .loadOptional(email);
+    }
+}
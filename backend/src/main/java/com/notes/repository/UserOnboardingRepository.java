@@ -0,0 +1,31 @@
+package com.notes.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * One user_onboarding row per user whose default data was seeded. The primary key is what makes
+ * seeding happen at most once; plain JDBC, so the insert does not invalidate Hibernate's caches.
+ */
+@Repository
+public class UserOnboardingRepository {
+
+    private static final String CLAIM =
+            "INSERT INTO user_onboarding (user_id, seeded_at) VALUES (?, now()) ON CONFLICT (user_id) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public UserOnboardingRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Claim the user's seeding inside the seeding transaction; false if it was already claimed.
+     * A concurrent claim waits for the first one's transaction and succeeds only if that rolled back.
+     */
+    public boolean claim(Long userId) {
+        return jdbcTemplate.update(CLAIM, userId) > 0;
+    }
+}
@@ -2,30 +2,55 @@ package com.notes.security;
 
 import com.notes.entity.User;
 import com.notes.repository.UserRepository;
+import com.notes.service.InvalidationBus;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
-
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private UserCache userCache;
+    
+    @Autowired
+    private InvalidationBus invalidationBus;
+    
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
         
-        return new org.springframework.security.core.userdetails.User(
-                user.getEmail(),
-                user.getPassword(),
-                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"))
-        );
+        return new AuthenticatedUser(user.getId(), user.getEmail(), user.getPassword());
+    }
+    
+    /**
+     * Store a rehashed password; called by the authentication provider after a successful login
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        AuthenticatedUser principal = (AuthenticatedUser) user;
+        userRepository.updatePasswordByEmail(principal.getEmail(), newPassword);
+        invalidationBus.userChanged(principal.getId(), principal.getEmail());
+        return new AuthenticatedUser(principal.getId(), principal.getEmail(), newPassword);
+    }
+    
+    /**
+     * Resolve the principal for an already-authenticated email, served from the user cache when possible
+     */
+    public AuthenticatedUser loadAuthenticatedUser(String email) throws UsernameNotFoundException {
+        AuthenticatedUser principal = userCache.get(email, key -> userRepository.findByEmail(key)
+                .map(user -> new AuthenticatedUser(user.getId(), user.getEmail()))
+                .orElse(null));
+        if (principal == null) {
+            throw new UsernameNotFoundException("User not found with email: " + email);
+        }
+        return principal;
     }
 }
@@ -1,5 +1,6 @@
 package com.notes.security;
 
+import com.notes.service.DemoSandboxStore;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -7,8 +8,6 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -23,7 +22,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private JwtUtil jwtUtil;
     
     @Autowired
-    private UserDetailsService userDetailsService;
+    private CustomUserDetailsService userDetailsService;
+    
+    @Autowired
+    private DemoSandboxStore demoSandboxStore;
+    
+    @Autowired
+    private TokenRevocationList revocationList;
     
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -32,12 +37,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
             
-            if (StringUtils.hasText(jwt) && jwtUtil.validateToken(jwt)) {
-                String email = jwtUtil.getEmailFromToken(jwt);
-                
-                UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+            VerifiedToken verifiedToken = StringUtils.hasText(jwt) ? jwtUtil.verifyToken(jwt) : null;
+            
+            if (verifiedToken != null && !isExpiredDemoSession(verifiedToken)
+                    && !revocationList.isRevoked(verifiedToken.getTokenId())) {
+                // Tokens issued with a user id need no lookup; older tokens fall back to the user cache
+                AuthenticatedUser principal = verifiedToken.getUserId() != null
+                        ? new AuthenticatedUser(verifiedToken.getUserId(), verifiedToken.getEmail())
+                        : userDetailsService.loadAuthenticatedUser(verifiedToken.getEmail());
                 UsernamePasswordAuthenticationToken authentication = 
-                    new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                    new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -49,6 +58,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
     
+    /**
+     * Demo tokens carry a negative sandbox id and the sandbox's session secret as their id;
+     * they stop working once the sandbox is gone and never open a sandbox issued to another session
+     */
+    private boolean isExpiredDemoSession(VerifiedToken token) {
+        Long userId = token.getUserId();
+        return userId != null && userId < 0 && !demoSandboxStore.isActiveSession(userId, token.getTokenId());
+    }
+    
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
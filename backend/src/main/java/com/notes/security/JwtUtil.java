@@ -2,55 +2,169 @@ package com.notes.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
 public class JwtUtil {
     
+    private static final String USER_ID_CLAIM = "uid";
+    private static final int EVICTION_BATCH_DIVISOR = 10;
+    
     @Value("${jwt.secret:mySecretKeyForNotesManagementApplication123456789}")
     private String secret;
     
-    @Value("${jwt.expiration:86400000}") // 24 hours in milliseconds
+    @Value("${jwt.expiration:900000}") // 15 minutes in milliseconds; sessions are extended with refresh tokens
     private long expiration;
     
+    @Value("${jwt.cache.max-size:10000}")
+    private int cacheMaxSize;
+    
+    private SecretKey signingKey;
+    private JwtParser parser;
+    
+    // Verified tokens keyed by SHA-256 digest, so raw bearer tokens are never kept in memory
+    private final Map<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    
+    @PostConstruct
+    void init() {
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+    }
+    
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        return signingKey;
     }
     
     public String generateToken(String email) {
+        return generateToken(email, null);
+    }
+    
+    public String generateToken(String email, Long userId) {
+        return generateToken(email, userId, expiration);
+    }
+    
+    /**
+     * Issue a token with its own lifetime. Every token gets a random id (jti) so it can be revoked.
+     */
+    public String generateToken(String email, Long userId, long expirationMillis) {
+        return generateToken(email, userId, expirationMillis, UUID.randomUUID().toString());
+    }
+    
+    /**
+     * Issue a token with a given id, e.g. the session secret of a demo sandbox
+     */
+    public String generateToken(String email, Long userId, long expirationMillis, String tokenId) {
         Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + expiration);
+        Date expiryDate = new Date(now.getTime() + expirationMillis);
         
-        return Jwts.builder()
-                .subject(email)
+        JwtBuilder builder = Jwts.builder()
+                .id(tokenId)
+                .subject(email);
+        if (userId != null) {
+            builder.claim(USER_ID_CLAIM, userId);
+        }
+        return builder
                 .issuedAt(now)
                 .expiration(expiryDate)
                 .signWith(getSigningKey())
                 .compact();
     }
     
-    public String getEmailFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    /**
+     * Verify the token once and return its claims, or null if it is not valid.
+     * Repeated calls with the same token are served from the verified-token cache
+     * until the token expires.
+     */
+    public VerifiedToken verifyToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        
+        long now = System.currentTimeMillis();
+        String key = digest(token);
+        VerifiedToken cached = verifiedTokens.get(key);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                cacheHits.incrementAndGet();
+                return cached;
+            }
+            verifiedTokens.remove(key);
+            return null;
+        }
+        
+        cacheMisses.incrementAndGet();
+        Claims claims = parseClaims(token);
+        if (claims == null) {
+            return null;
+        }
         
-        return claims.getSubject();
+        Number userId = claims.get(USER_ID_CLAIM, Number.class);
+        VerifiedToken verified = new VerifiedToken(claims.getSubject(),
+                userId != null ? userId.longValue() : null,
+                claims.getId(),
+                claims.getExpiration());
+        if (verifiedTokens.size() >= cacheMaxSize) {
+            evictEntries(now);
+        }
+        verifiedTokens.put(key, verified);
+        return verified;
+    }
+    
+    public String getEmailFromToken(String token) {
+        return parser.parseSignedClaims(token).getPayload().getSubject();
     }
     
     public boolean validateToken(String token) {
+        return parseClaims(token) != null;
+    }
+    
+    public boolean isTokenExpired(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            return claims.getExpiration().before(new Date());
+        } catch (ExpiredJwtException e) {
             return true;
+        }
+    }
+    
+    public long getExpiration() {
+        return expiration;
+    }
+    
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+    
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+    
+    public int getCacheSize() {
+        return verifiedTokens.size();
+    }
+    
+    private Claims parseClaims(String token) {
+        try {
+            return parser.parseSignedClaims(token).getPayload();
         } catch (ExpiredJwtException e) {
             System.err.println("JWT token is expired: " + e.getMessage());
         } catch (UnsupportedJwtException e) {
@@ -62,19 +176,31 @@ public class JwtUtil {
         } catch (IllegalArgumentException e) {
             System.err.println("JWT token is empty or null: " + e.getMessage());
         }
-        return false;
+        return null;
     }
     
-    public boolean isTokenExpired(String token) {
+    /**
+     * Drop expired entries first; if the cache is still above the low-water mark, drop arbitrary
+     * entries until it is under it. Freeing a tenth of the cache at once means the full scan runs
+     * once per that many misses instead of on every miss.
+     */
+    private void evictEntries(long now) {
+        verifiedTokens.values().removeIf(token -> token.isExpired(now));
+        int target = cacheMaxSize - Math.max(1, cacheMaxSize / EVICTION_BATCH_DIVISOR);
+        Iterator<String> keys = verifiedTokens.keySet().iterator();
+        while (verifiedTokens.size() > target && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+    
+    private static String digest(String token) {
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-            return claims.getExpiration().before(new Date());
-        } catch (ExpiredJwtException e) {
-            return true;
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
         }
     }
 }
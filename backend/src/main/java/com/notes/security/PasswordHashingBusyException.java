@@ -0,0 +1,18 @@
+package com.notes.security;
+
+/**
+ * Thrown when the password hashing pool is saturated; callers answer 503 with Retry-After
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+    
+    private final long retryAfterSeconds;
+    
+    public PasswordHashingBusyException(long retryAfterSeconds) {
+        super("Password hashing capacity exhausted, retry in " + retryAfterSeconds + "s");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,134 @@
+package com.notes.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process rate limiting. Login and registration are limited per client IP,
+ * note and board writes per authenticated user. Behind a proxy the client IP is the one
+ * Tomcat resolves from X-Forwarded-For (server.forward-headers-strategy), never the proxy's. Runs after JwtAuthenticationFilter
+ * so the user is known. Rejected requests get 429 with Retry-After.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${rate-limit.auth.capacity:10}")
+    private int authCapacity;
+    
+    @Value("${rate-limit.auth.refill-per-second:0.5}")
+    private double authRefillPerSecond;
+    
+    @Value("${rate-limit.notes.capacity:100}")
+    private int notesCapacity;
+    
+    @Value("${rate-limit.notes.refill-per-second:50}")
+    private double notesRefillPerSecond;
+    
+    @Value("${rate-limit.boards.capacity:20}")
+    private int boardsCapacity;
+    
+    @Value("${rate-limit.boards.refill-per-second:2}")
+    private double boardsRefillPerSecond;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private RateLimiter authLimiter;
+    private RateLimiter notesLimiter;
+    private RateLimiter boardsLimiter;
+    private Counter rejectedCounter;
+    
+    @PostConstruct
+    public void init() {
+        authLimiter = new RateLimiter("auth", authCapacity, authRefillPerSecond);
+        notesLimiter = new RateLimiter("notes", notesCapacity, notesRefillPerSecond);
+        boardsLimiter = new RateLimiter("boards", boardsCapacity, boardsRefillPerSecond);
+        rejectedCounter = meterRegistry.counter("security.rate_limit.rejected");
+        for (RateLimiter limiter : new RateLimiter[] {authLimiter, notesLimiter, boardsLimiter}) {
+            Gauge.builder("security.rate_limit.buckets", limiter, RateLimiter::size)
+                    .tag("route", limiter.getName())
+                    .register(meterRegistry);
+        }
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (enabled) {
+            long waitNanos = check(request);
+            if (waitNanos > 0) {
+                rejectedCounter.increment();
+                long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                response.getWriter().write("{\"error\":\"Too many requests, please retry later\"}");
+                return;
+            }
+        }
+        
+        filterChain.doFilter(request, response);
+    }
+    
+    @Scheduled(fixedDelayString = "${rate-limit.eviction-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        authLimiter.evictIdle(now);
+        notesLimiter.evictIdle(now);
+        boardsLimiter.evictIdle(now);
+    }
+    
+    private long check(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        if (path.equals("/api/auth/login") || path.equals("/api/auth/register")) {
+            return authLimiter.tryAcquire(request.getRemoteAddr(), System.nanoTime());
+        }
+        
+        if (HttpMethod.GET.matches(request.getMethod()) || HttpMethod.OPTIONS.matches(request.getMethod())) {
+            return 0;
+        }
+        Long userId = currentUserId();
+        if (userId == null) {
+            return 0; // Unauthenticated writes are rejected by the security chain anyway
+        }
+        if (path.startsWith("/api/notes")) {
+            return notesLimiter.tryAcquire(userId.toString(), System.nanoTime());
+        }
+        if (path.startsWith("/api/boards")) {
+            return boardsLimiter.tryAcquire(userId.toString(), System.nanoTime());
+        }
+        return 0;
+    }
+    
+    private Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser principal) {
+            return principal.getId();
+        }
+        return null;
+    }
+}
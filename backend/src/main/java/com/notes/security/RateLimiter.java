@@ -0,0 +1,48 @@
+package com.notes.security;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token buckets of one route, keyed by client (IP address or user id).
+ * Lookups of existing keys go through ConcurrentHashMap without locking, and buckets
+ * are lock-free, so there is no global lock on the request path.
+ * Full buckets carry no state and are dropped by evictIdle.
+ */
+public class RateLimiter {
+    
+    private final String name;
+    private final int capacity;
+    private final double refillPerSecond;
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    
+    public RateLimiter(String name, int capacity, double refillPerSecond) {
+        this.name = name;
+        this.capacity = capacity;
+        this.refillPerSecond = refillPerSecond;
+    }
+    
+    /**
+     * Returns 0 if the client may proceed, otherwise the nanos until it may retry
+     */
+    public long tryAcquire(String key, long nowNanos) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(capacity, refillPerSecond, nowNanos));
+        }
+        return bucket.tryConsume(nowNanos);
+    }
+    
+    public int evictIdle(long nowNanos) {
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.isFull(nowNanos));
+        return before - buckets.size();
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -1,6 +1,10 @@
 package com.notes.security;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -10,7 +14,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -30,16 +33,63 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
     
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+    
+    @Value("${security.password.bcrypt-cost:0}")
+    private int bcryptCost;
+    
+    @Value("${security.password.target-hash-ms:250}")
+    private long targetHashMillis;
+    
+    @Value("${security.password.min-cost:10}")
+    private int minCost;
+    
+    @Value("${security.password.max-cost:14}")
+    private int maxCost;
+    
+    @Value("${security.password.hash-threads:0}")
+    private int hashThreads;
+    
+    @Value("${security.password.queue-capacity:50}")
+    private int hashQueueCapacity;
+    
+    @Value("${security.password.wait-timeout-ms:5000}")
+    private long hashWaitTimeoutMs;
+    
+    @Value("${security.password.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+    
+    /**
+     * BCrypt on a bounded pool; cost is fixed by security.password.bcrypt-cost
+     * or calibrated at startup to the target hash time when that is 0. Calibration is per node,
+     * so deployments with several replicas should pin the cost.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public BoundedPasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        int cost = bcryptCost > 0 ? bcryptCost : BoundedPasswordEncoder.calibrateCost(targetHashMillis, minCost, maxCost);
+        int threads = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        System.out.println("BCrypt cost " + cost + " on " + threads + " hashing threads"
+                + (bcryptCost > 0 ? "" : " (calibrated; set security.password.bcrypt-cost to pin it across nodes)"));
+        
+        BoundedPasswordEncoder encoder =
+                new BoundedPasswordEncoder(cost, threads, hashQueueCapacity, hashWaitTimeoutMs, retryAfterSeconds);
+        Gauge.builder("security.password.queue.depth", encoder, BoundedPasswordEncoder::getQueueDepth)
+                .register(meterRegistry);
+        Gauge.builder("security.password.active", encoder, BoundedPasswordEncoder::getActiveCount)
+                .register(meterRegistry);
+        FunctionCounter.builder("security.password.rejected", encoder, BoundedPasswordEncoder::getRejectedCount)
+                .register(meterRegistry);
+        return encoder;
     }
     
     @Bean
-    public DaoAuthenticationProvider authenticationProvider() {
+    public DaoAuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
+        // Rehashes the password on successful login when its stored cost is below the current one
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return authProvider;
     }
     
@@ -57,7 +107,7 @@ public class SecurityConfig {
             "http://frontend",
             "http://frontend:80"
         ));
-        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
         configuration.setAllowCredentials(true);
         
@@ -68,7 +118,7 @@ public class SecurityConfig {
 
     
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, DaoAuthenticationProvider authenticationProvider) throws Exception {
         http
             .csrf(AbstractHttpConfigurer::disable)
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
@@ -80,8 +130,9 @@ public class SecurityConfig {
                 .anyRequest().authenticated()
             )
 
-            .authenticationProvider(authenticationProvider())
-            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+            .authenticationProvider(authenticationProvider)
+            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+            .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class);
         
         return http.build();
     }
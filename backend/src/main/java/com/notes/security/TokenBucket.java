@@ -0,0 +1,45 @@
+package com.notes.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket. The bucket state is a single "theoretical arrival time"
+ * (the GCRA form of a token bucket), so a check is one CAS on an AtomicLong and allocates nothing.
+ * A full bucket has a theoretical arrival time at or before now.
+ */
+public class TokenBucket {
+    
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrival;
+    
+    public TokenBucket(int capacity, double refillPerSecond, long nowNanos) {
+        this.nanosPerToken = (long) (1_000_000_000L / refillPerSecond);
+        this.burstNanos = nanosPerToken * capacity;
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+    
+    /**
+     * Take one token. Returns 0 if the request is allowed, otherwise the nanos until a token is available.
+     */
+    public long tryConsume(long nowNanos) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, nowNanos) + nanosPerToken;
+            long wait = next - nowNanos - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+    
+    /**
+     * True when the bucket has refilled completely, i.e. it is indistinguishable from a new one
+     */
+    public boolean isFull(long nowNanos) {
+        return theoreticalArrival.get() <= nowNanos;
+    }
+}
@@ -0,0 +1,115 @@
+package com.notes.security;
+
+import com.notes.entity.RevokedToken;
+import com.notes.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revoked access token ids, checked on every authenticated request.
+ * A Bloom filter answers the common "not revoked" case without touching the exact set;
+ * only possible hits are confirmed against it. Both checks are O(1) and allocation-free.
+ * Revocations are written to the revoked_tokens table and announced on the invalidation bus;
+ * every node also reloads the table periodically, in case an announcement was missed.
+ */
+@Component
+public class TokenRevocationList {
+    
+    @Value("${jwt.revocation.expected-entries:100000}")
+    private int expectedEntries;
+    
+    @Value("${jwt.revocation.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+    
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private volatile Snapshot snapshot;
+    
+    @PostConstruct
+    void init() {
+        snapshot = new Snapshot(new BloomFilter(expectedEntries, falsePositiveRate), new ConcurrentHashMap<>());
+        Gauge.builder("security.revoked_tokens", this, list -> list.snapshot.expiresAtByTokenId.size())
+                .register(meterRegistry);
+    }
+    
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null) {
+            return false;
+        }
+        Snapshot current = snapshot;
+        return current.bloom.mightContain(tokenId) && current.expiresAtByTokenId.containsKey(tokenId);
+    }
+    
+    /**
+     * Revoke an access token until it expires
+     */
+    public void revoke(String tokenId, long expiresAtMillis) {
+        if (tokenId == null) {
+            return;
+        }
+        revokedTokenRepository.save(new RevokedToken(tokenId, toLocalDateTime(expiresAtMillis)));
+        snapshot.add(tokenId, expiresAtMillis);
+    }
+    
+    /**
+     * Apply a revocation another node has already stored
+     */
+    public void revokedElsewhere(String tokenId, long expiresAtMillis) {
+        if (tokenId != null && expiresAtMillis > System.currentTimeMillis()) {
+            snapshot.add(tokenId, expiresAtMillis);
+        }
+    }
+    
+    /**
+     * Rebuild the filter from the database. Entries known locally are kept until they expire,
+     * so a revocation that raced with the reload query is never lost.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-interval-ms:30000}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        LocalDateTime nowDateTime = toLocalDateTime(now);
+        revokedTokenRepository.deleteExpired(nowDateTime);
+        
+        Snapshot previous = snapshot;
+        Snapshot next = new Snapshot(
+                new BloomFilter(Math.max(expectedEntries, previous.expiresAtByTokenId.size() * 2), falsePositiveRate),
+                new ConcurrentHashMap<>());
+        for (RevokedToken revoked : revokedTokenRepository.findActive(nowDateTime)) {
+            next.add(revoked.getJti(), revoked.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+        previous.expiresAtByTokenId.forEach((tokenId, expiresAt) -> {
+            if (expiresAt > now) {
+                next.add(tokenId, expiresAt);
+            }
+        });
+        snapshot = next;
+    }
+    
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+    
+    private record Snapshot(BloomFilter bloom, Map<String, Long> expiresAtByTokenId) {
+        
+        void add(String tokenId, long expiresAtMillis) {
+            // Exact entry first: a reader that sees the Bloom bits must also find the entry
+            expiresAtByTokenId.put(tokenId, expiresAtMillis);
+            bloom.add(tokenId);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.notes.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Bounded email -> principal cache used to resolve tokens that do not carry a user id.
+ * Entries must be evicted whenever the underlying account is created or changed.
+ */
+@Component
+public class UserCache {
+
+    @Value("${security.user-cache.max-size:10000}")
+    private int maxSize;
+
+    private final Map<String, AuthenticatedUser> usersByEmail = new ConcurrentHashMap<>();
+
+    public AuthenticatedUser get(String email, Function<String, AuthenticatedUser> loader) {
+        AuthenticatedUser cached = usersByEmail.get(email);
+        if (cached != null) {
+            return cached;
+        }
+
+        AuthenticatedUser loaded = loader.apply(email);
+        if (loaded != null) {
+            if (usersByEmail.size() >= maxSize) {
+                Iterator<String> keys = usersByEmail.keySet().iterator();
+                while (usersByEmail.size() >= maxSize && keys.hasNext()) {
+                    keys.next();
+                    keys.remove();
+                }
+            }
+            usersByEmail.put(email, loaded);
+        }
+        return loaded;
+    }
+
+    public void evict(String email) {
+        if (email != null) {
+            usersByEmail.remove(email);
+        }
+    }
+
+    public void evictAll() {
+        usersByEmail.clear();
+    }
+
+    public int size() {
+        return usersByEmail.size();
+    }
+}
@@ -0,0 +1,48 @@
+package com.notes.security;
+
+import java.util.Date;
+
+/**
+ * Claims of a JWT whose signature and expiry have already been verified.
+ * Instances are immutable so they can be shared through the verified-token cache.
+ */
+public class VerifiedToken {
+
+    private final String email;
+    private final Long userId;
+    private final String tokenId;
+    private final long expiresAtMillis;
+
+    public VerifiedToken(String email, Long userId, String tokenId, Date expiration) {
+        this.email = email;
+        this.userId = userId;
+        this.tokenId = tokenId;
+        this.expiresAtMillis = expiration != null ? expiration.getTime() : Long.MAX_VALUE;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    /**
+     * User id carried in the token, or null for tokens issued before the claim existed
+     */
+    public Long getUserId() {
+        return userId;
+    }
+
+    /**
+     * Token id (jti) used for revocation, or null for tokens issued before the claim existed
+     */
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+}
@@ -0,0 +1,66 @@
+package com.notes.service;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Shelf layout behind "tidy up". Notes keep their reading order (top to bottom in bands of one
+ * default note height, then left to right) and are packed into rows about as wide as a 16:9
+ * rectangle holding all of them, starting at the board's current top-left corner.
+ * Sorting dominates, so a board of n notes is laid out in O(n log n).
+ */
+final class BoardLayout {
+    
+    private static final double ASPECT_RATIO = 16.0 / 9.0;
+    
+    private BoardLayout() {
+    }
+    
+    /**
+     * Overwrite x and y with the tidied positions; a width or height of 0 means the default size
+     */
+    static void tidy(double[] x, double[] y, double[] width, double[] height, double gap) {
+        int n = x.length;
+        if (n == 0) {
+            return;
+        }
+        double originX = Double.MAX_VALUE;
+        double originY = Double.MAX_VALUE;
+        double area = 0;
+        double widest = 0;
+        for (int i = 0; i < n; i++) {
+            originX = Math.min(originX, x[i]);
+            originY = Math.min(originY, y[i]);
+            area += (sizeOf(width[i]) + gap) * (sizeOf(height[i]) + gap);
+            widest = Math.max(widest, sizeOf(width[i]));
+        }
+        double rowWidth = Math.max(widest, Math.sqrt(area * ASPECT_RATIO));
+        
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingLong(i -> (long) Math.floor(y[i] / BoardSpatialIndex.DEFAULT_NOTE_SIZE))
+                .thenComparingDouble(i -> x[i]));
+        
+        double cursorX = originX;
+        double cursorY = originY;
+        double shelfHeight = 0;
+        for (int i : order) {
+            double w = sizeOf(width[i]);
+            if (cursorX > originX && cursorX + w > originX + rowWidth) {
+                cursorX = originX;
+                cursorY += shelfHeight + gap;
+                shelfHeight = 0;
+            }
+            x[i] = cursorX;
+            y[i] = cursorY;
+            cursorX += w + gap;
+            shelfHeight = Math.max(shelfHeight, sizeOf(height[i]));
+        }
+    }
+    
+    private static double sizeOf(double size) {
+        return size > 0 ? size : BoardSpatialIndex.DEFAULT_NOTE_SIZE;
+    }
+}
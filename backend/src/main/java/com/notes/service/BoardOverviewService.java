@@ -0,0 +1,177 @@
+package com.notes.service;
+
+import com.notes.dto.BoardOverview;
+import com.notes.dto.OverviewTile;
+import com.notes.entity.Board;
+import com.notes.entity.Note;
+import com.notes.entity.User;
+import com.notes.repository.NoteViewRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Level-of-detail overviews for zoomed-out boards. At zoom z the board's extent is split into
+ * 2^z x 2^z cells and each non-empty cell is reported as one tile, so the payload is bounded by
+ * the zoom level rather than the number of notes. Overviews are cached per board version.
+ */
+@Service
+public class BoardOverviewService {
+    
+    @Value("${notes.overview.max-zoom:6}")
+    private int maxZoom;
+    
+    @Value("${notes.overview.max-cached:2000}")
+    private int maxCached;
+    
+    private final NoteService noteService;
+    private final NoteViewRepository noteViewRepository;
+    private final BoardVersions boardVersions;
+    private final DemoSandboxStore demoSandboxes;
+    private final Map<OverviewKey, BoardOverview> cache = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    
+    @Autowired
+    public BoardOverviewService(NoteService noteService,
+                                NoteViewRepository noteViewRepository,
+                                BoardVersions boardVersions,
+                                DemoSandboxStore demoSandboxes,
+                                MeterRegistry meterRegistry) {
+        this.noteService = noteService;
+        this.noteViewRepository = noteViewRepository;
+        this.boardVersions = boardVersions;
+        this.demoSandboxes = demoSandboxes;
+        this.hits = meterRegistry.counter("notes.overview.cache", "result", "hit");
+        this.misses = meterRegistry.counter("notes.overview.cache", "result", "miss");
+        Gauge.builder("notes.overview.cached", cache, Map::size)
+                .register(meterRegistry);
+    }
+    
+    public int getMaxZoom() {
+        return maxZoom;
+    }
+    
+    public BoardOverview getOverview(Board board, User user, int zoom) {
+        int gridSize = 1 << zoom;
+        // Sandbox board ids are local to the sandbox, so sandbox overviews are never shared through the cache
+        if (DemoSandboxStore.isSandboxUser(user)) {
+            List<Note> notes = noteService.getAllNotesByBoardAndUser(board, user);
+            return new BoardOverview(board.getId(), 0, zoom, gridSize, aggregate(notes, gridSize));
+        }
+        
+        // Buffered moves bump the version when they are written, so write them before checking it
+        noteService.flushPendingGeometry(user);
+        OverviewKey key = new OverviewKey(board.getId(), zoom);
+        // Read the version before the notes: a change committed meanwhile bumps it again and the entry is recomputed
+        long version = boardVersions.current(board.getId());
+        BoardOverview cached = cache.get(key);
+        if (cached != null && cached.version() == version) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        
+        List<OverviewTile> tiles = noteViewRepository.aggregateTiles(board.getId(), user.getId(),
+                gridSize, BoardSpatialIndex.DEFAULT_NOTE_SIZE);
+        BoardOverview overview = new BoardOverview(board.getId(), version, zoom, gridSize, tiles);
+        if (cache.size() >= maxCached) {
+            evictStale();
+        }
+        cache.put(key, overview);
+        return overview;
+    }
+    
+    /**
+     * In-memory counterpart of the aggregate tile query, with the same cell assignment and tie-breaking
+     */
+    static List<OverviewTile> aggregate(List<Note> notes, int gridSize) {
+        if (notes.isEmpty()) {
+            return List.of();
+        }
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (Note note : notes) {
+            minX = Math.min(minX, note.getPositionX());
+            minY = Math.min(minY, note.getPositionY());
+            maxX = Math.max(maxX, note.getPositionX());
+            maxY = Math.max(maxY, note.getPositionY());
+        }
+        double spanX = Math.max(maxX - minX, 1);
+        double spanY = Math.max(maxY - minY, 1);
+        
+        Map<Long, TileBuilder> cells = new HashMap<>();
+        for (Note note : notes) {
+            int column = Math.min((int) Math.floor((note.getPositionX() - minX) / spanX * gridSize), gridSize - 1);
+            int row = Math.min((int) Math.floor((note.getPositionY() - minY) / spanY * gridSize), gridSize - 1);
+            cells.computeIfAbsent((long) row * gridSize + column, cell -> new TileBuilder(column, row)).add(note);
+        }
+        
+        List<OverviewTile> tiles = new ArrayList<>(cells.size());
+        for (TileBuilder builder : cells.values()) {
+            tiles.add(builder.build());
+        }
+        tiles.sort(Comparator.comparingInt(OverviewTile::row).thenComparingInt(OverviewTile::column));
+        return tiles;
+    }
+    
+    private void evictStale() {
+        cache.entrySet().removeIf(entry -> entry.getValue().version() != boardVersions.current(entry.getKey().boardId()));
+        Iterator<OverviewKey> keys = cache.keySet().iterator();
+        while (cache.size() >= maxCached && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+    
+    private record OverviewKey(Long boardId, int zoom) {
+    }
+    
+    private static class TileBuilder {
+        private final int column;
+        private final int row;
+        private final Map<String, Integer> colorCounts = new HashMap<>();
+        private long count;
+        private double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+        private double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        
+        TileBuilder(int column, int row) {
+            this.column = column;
+            this.row = row;
+        }
+        
+        void add(Note note) {
+            double width = note.getWidth() != null && note.getWidth() > 0 ? note.getWidth() : BoardSpatialIndex.DEFAULT_NOTE_SIZE;
+            double height = note.getHeight() != null && note.getHeight() > 0 ? note.getHeight() : BoardSpatialIndex.DEFAULT_NOTE_SIZE;
+            count++;
+            minX = Math.min(minX, note.getPositionX());
+            minY = Math.min(minY, note.getPositionY());
+            maxX = Math.max(maxX, note.getPositionX() + width);
+            maxY = Math.max(maxY, note.getPositionY() + height);
+            if (note.getColor() != null) {
+                colorCounts.merge(note.getColor(), 1, Integer::sum);
+            }
+        }
+        
+        OverviewTile build() {
+            // Most frequent color, ties going to the smallest value like mode() in PostgreSQL
+            String dominantColor = colorCounts.entrySet().stream()
+                    .max(Map.Entry.<String, Integer>comparingByValue()
+                            .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                    .map(Map.Entry::getKey)
+                    .orElse(null);
+            return new OverviewTile(column, row, count, dominantColor, minX, minY, maxX, maxY);
+        }
+    }
+}
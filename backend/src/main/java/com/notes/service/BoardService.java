@@ -1,58 +1,151 @@
 package com.notes.service;
 
+import com.notes.dto.BoardSummary;
 import com.notes.entity.Board;
 import com.notes.entity.Note;
 import com.notes.entity.User;
 import com.notes.repository.BoardRepository;
+import com.notes.repository.ChangeFeedRepository;
 import com.notes.repository.NoteRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 @Service
 public class BoardService {
     
     private static final int MAX_BOARDS_PER_USER = 20;
     
+    @Value("${notes.purge.chunk-size:1000}")
+    private int purgeChunkSize;
+    
     private final BoardRepository boardRepository;
     private final NoteRepository noteRepository;
+    private final DemoSandboxStore demoSandboxes;
+    private final NoteSpatialIndexCache spatialIndex;
+    private final BoardVersions boardVersions;
+    private final NoteSearchService noteSearch;
+    private final ChangeFeedRepository changeFeed;
+    private final NoteGeometryWriteBehind geometryWriteBehind;
+    private final BoardViewCache boardViews;
+    private final InvalidationBus invalidationBus;
     
     @Autowired
-    public BoardService(BoardRepository boardRepository, NoteRepository noteRepository) {
+    public BoardService(BoardRepository boardRepository, NoteRepository noteRepository,
+                        DemoSandboxStore demoSandboxes, NoteSpatialIndexCache spatialIndex,
+                        BoardVersions boardVersions, NoteSearchService noteSearch,
+                        ChangeFeedRepository changeFeed, NoteGeometryWriteBehind geometryWriteBehind,
+                        BoardViewCache boardViews, InvalidationBus invalidationBus) {
         this.boardRepository = boardRepository;
         this.noteRepository = noteRepository;
+        this.demoSandboxes = demoSandboxes;
+        this.spatialIndex = spatialIndex;
+        this.boardVersions = boardVersions;
+        this.noteSearch = noteSearch;
+        this.changeFeed = changeFeed;
+        this.geometryWriteBehind = geometryWriteBehind;
+        this.boardViews = boardViews;
+        this.invalidationBus = invalidationBus;
     }
     
     public List<Board> getAllBoardsByUser(User user) {
+        DemoSandbox sandbox = demoSandboxes.get(user);
+        if (sandbox != null) {
+            return sandbox.getBoards();
+        }
         return boardRepository.findByUserOrderByCreatedAtAsc(user);
     }
     
+    public List<BoardSummary> getBoardSummariesByUser(User user) {
+        DemoSandbox sandbox = demoSandboxes.get(user);
+        if (sandbox != null) {
+            return sandbox.update(() -> sandbox.getBoards().stream()
+                    .map(board -> summarize(board, sandbox))
+                    .toList());
+        }
+        return boardRepository.findSummariesByUserId(user.getId());
+    }
+    
+    public Optional<BoardSummary> getBoardSummaryById(Long id, User user) {
+        DemoSandbox sandbox = demoSandboxes.get(user);
+        if (sandbox != null) {
+            return sandbox.update(() -> sandbox.getBoard(id).map(board -> summarize(board, sandbox)));
+        }
+        return boardRepository.findSummaryByIdAndUserId(id, user.getId());
+    }
+    
     public Optional<Board> getBoardById(Long id) {
         return boardRepository.findById(id);
     }
     
     public Optional<Board> getBoardById(Long id, User user) {
+        DemoSandbox sandbox = demoSandboxes.get(user);
+        if (sandbox != null) {
+            return sandbox.getBoard(id);
+        }
         return boardRepository.findById(id)
                 .filter(board -> board.getUser().getId().equals(user.getId()));
     }
     
+    /**
+     * Version of the board and its notes if the board belongs to the user; empty for sandbox users,
+     * whose boards are not versioned. Served from memory once the board has been seen.
+     */
+    public OptionalLong getBoardVersion(Long id, User user) {
+        if (DemoSandboxStore.isSandboxUser(user)) {
+            return OptionalLong.empty();
+        }
+        flushPendingGeometry(user);
+        return boardVersions.versionFor(id, user.getId());
+    }
+    
+    /**
+     * Version of everything the user owns: the user's change sequence, moved on by every board and note write
+     */
+    public OptionalLong getBoardListVersion(User user) {
+        if (DemoSandboxStore.isSandboxUser(user)) {
+            return OptionalLong.empty();
+        }
+        flushPendingGeometry(user);
+        return OptionalLong.of(changeFeed.findLastChangeSeq(user.getId()));
+    }
+    
     @Transactional
     public Board createBoard(Board board, User user) throws IllegalStateException {
         // Check if user has reached the maximum number of boards
-        long boardCount = boardRepository.countByUser(user);
+        long boardCount = countBoardsByUser(user);
         if (boardCount >= MAX_BOARDS_PER_USER) {
             throw new IllegalStateException("Maximum number of boards (20) reached for this user");
         }
         
+        DemoSandbox sandbox = demoSandboxes.get(user);
+        if (sandbox != null) {
+            return sandbox.addBoard(board);
+        }
         board.setUser(user);
+        changeFeed.nextChangeSeq(user.getId());
         return boardRepository.save(board);
     }
     
     @Transactional
     public Board updateBoard(Long id, String newName, User user) {
+        DemoSandbox sandbox = demoSandboxes.get(user);
+        if (sandbox != null) {
+            return sandbox.update(() -> sandbox.getBoard(id)
+                    .map(board -> {
+                        board.setName(newName);
+                        return board;
+                    })
+                    .orElse(null));
+        }
         Optional<Board> optionalBoard = boardRepository.findById(id);
         if (optionalBoard.isPresent()) {
             Board board = optionalBoard.get();
@@ -60,7 +153,13 @@ public class BoardService {
             if (!board.getUser().getId().equals(user.getId())) {
                 return null; // Not authorized to update this board
             }
+            // Taken only once the write is certain, so a rejected rename leaves the board list version alone
+            long changeSeq = changeFeed.nextChangeSeq(user.getId());
             board.setName(newName);
+            board.setUpdatedAt(LocalDateTime.now());
+            changeFeed.markBoardChanged(id, changeSeq);
+            boardViews.boardChanged(id, boardVersions.boardChanged(id));
+            invalidationBus.boardChanged(id);
             return boardRepository.save(board);
         }
         return null;
@@ -68,27 +167,72 @@ public class BoardService {
     
     @Transactional
     public boolean deleteBoard(Long id, User user) {
-        Optional<Board> optionalBoard = boardRepository.findById(id);
-        if (optionalBoard.isPresent()) {
-            Board board = optionalBoard.get();
-            // Check if the board belongs to the user
-            if (!board.getUser().getId().equals(user.getId())) {
-                return false; // Not authorized to delete this board
-            }
-            
-            // Delete all notes associated with this board first
-            List<Note> notes = board.getNotes();
-            if (notes != null && !notes.isEmpty()) {
-                noteRepository.deleteAll(notes);
-            }
-            
-            boardRepository.deleteById(id);
-            return true;
+        DemoSandbox sandbox = demoSandboxes.get(user);
+        if (sandbox != null) {
+            return sandbox.removeBoard(id);
         }
-        return false;
+        changeFeed.nextChangeSeq(user.getId());
+        // Single ownership-checked DELETE; the board's notes and tags go with it through ON DELETE CASCADE
+        boolean deleted = boardRepository.deleteByIdAndUserId(id, user.getId()) > 0;
+        if (deleted) {
+            // One board tombstone stands for all of its notes
+            changeFeed.recordBoardDeleted(user.getId(), id);
+            spatialIndex.boardDeleted(id);
+            boardVersions.boardDeleted(id);
+            boardViews.boardDeleted(id);
+            noteSearch.boardDeleted(user.getId(), id);
+            invalidationBus.boardDeleted(user.getId(), id);
+        }
+        return deleted;
+    }
+    
+    /**
+     * Delete every note and board of the user. Notes are removed in chunks of
+     * notes.purge.chunk-size, each in its own transaction, so a very large account
+     * never holds row locks for long. Must be called outside a transaction for that to hold.
+     */
+    public long deleteAllBoardsAndNotes(User user) {
+        // Tombstones first, while the boards still exist; board tombstones cover the notes deleted below
+        changeFeed.recordAllBoardsDeleted(user.getId());
+        long deletedNotes = 0;
+        int deleted;
+        do {
+            deleted = noteRepository.deleteChunkByUserId(user.getId(), purgeChunkSize);
+            deletedNotes += deleted;
+        } while (deleted > 0);
+        
+        boardRepository.deleteAllByUserId(user.getId());
+        // Moves the user's change sequence on, which changes the ETag of the board list
+        changeFeed.nextChangeSeq(user.getId());
+        boardVersions.userBoardsDeleted(user.getId());
+        boardViews.userDeleted(user.getId());
+        noteSearch.userChanged(user.getId());
+        invalidationBus.userBoardsDeleted(user.getId());
+        return deletedNotes;
     }
     
     public long countBoardsByUser(User user) {
+        DemoSandbox sandbox = demoSandboxes.get(user);
+        if (sandbox != null) {
+            return sandbox.countBoards();
+        }
         return boardRepository.countByUser(user);
     }
+    
+    // Buffered moves bump versions when they are written, so write them before a version is read
+    private void flushPendingGeometry(User user) {
+        if (geometryWriteBehind.isEnabled()) {
+            geometryWriteBehind.flushUser(user.getId());
+        }
+    }
+    
+    private BoardSummary summarize(Board board, DemoSandbox sandbox) {
+        List<Note> notes = sandbox.getNotes(board.getId());
+        LocalDateTime lastModifiedAt = notes.stream()
+                .map(Note::getCreatedAt)
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .orElse(board.getCreatedAt());
+        return new BoardSummary(board.getId(), board.getName(), board.getCreatedAt(), notes.size(), lastModifiedAt);
+    }
 }
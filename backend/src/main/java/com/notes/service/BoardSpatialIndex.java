@@ -0,0 +1,388 @@
+package com.notes.service;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Uniform-grid spatial index over the notes of one board. Note rectangles are kept in
+ * primitive arrays (struct-of-arrays, indexed by slot); every grid cell lists the slots
+ * of the notes overlapping it. Notes without an explicit size use the client's default
+ * of 300 x 300. Cell coordinates are clamped, and notes covering more than MAX_LINKED_CELLS
+ * cells are kept in a separate list checked by every lookup, so no rectangle (however large)
+ * makes a lookup walk an unbounded number of cells.
+ */
+public class BoardSpatialIndex {
+    
+    static final double DEFAULT_NOTE_SIZE = 300;
+    
+    // Keeps cell coordinates inside the 32 bits each that cellKey packs them into
+    private static final long MAX_CELL = 1L << 30;
+    static final long MAX_LINKED_CELLS = 1024;
+    
+    private final double cellSize;
+    // User whose notes the index holds, or null for an index over notes outside the database
+    private final Long ownerId;
+    private long[] ids = new long[16];
+    private double[] minX = new double[16];
+    private double[] minY = new double[16];
+    private double[] maxX = new double[16];
+    private double[] maxY = new double[16];
+    private int size;
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private final Map<Long, SlotList> cells = new HashMap<>();
+    private final SlotList oversized = new SlotList();
+    
+    // Per-query visit stamps, so a note spanning several cells is reported once
+    private int[] visitedStamp = new int[16];
+    private int queryStamp;
+    
+    private volatile long lastAccessMillis = System.currentTimeMillis();
+    
+    public BoardSpatialIndex(double cellSize) {
+        this(cellSize, null);
+    }
+    
+    public BoardSpatialIndex(double cellSize, Long ownerId) {
+        this.cellSize = cellSize;
+        this.ownerId = ownerId;
+    }
+    
+    public Long getOwnerId() {
+        return ownerId;
+    }
+    
+    /**
+     * Insert or move a note. NaN arguments keep the note's current value (or the default for a new note);
+     * a width or height of 0 means the default size.
+     */
+    public synchronized void upsert(long id, double x, double y, double width, double height) {
+        Integer existing = slotById.get(id);
+        int slot;
+        double oldWidth = DEFAULT_NOTE_SIZE;
+        double oldHeight = DEFAULT_NOTE_SIZE;
+        double oldX = 0;
+        double oldY = 0;
+        if (existing != null) {
+            slot = existing;
+            oldX = minX[slot];
+            oldY = minY[slot];
+            oldWidth = maxX[slot] - minX[slot];
+            oldHeight = maxY[slot] - minY[slot];
+            unlinkCells(slot);
+        } else {
+            slot = size++;
+            ensureCapacity(size);
+            ids[slot] = id;
+            slotById.put(id, slot);
+        }
+        
+        double newX = Double.isNaN(x) ? oldX : x;
+        double newY = Double.isNaN(y) ? oldY : y;
+        double newWidth = Double.isNaN(width) ? oldWidth : (width > 0 ? width : DEFAULT_NOTE_SIZE);
+        double newHeight = Double.isNaN(height) ? oldHeight : (height > 0 ? height : DEFAULT_NOTE_SIZE);
+        minX[slot] = newX;
+        minY[slot] = newY;
+        maxX[slot] = newX + newWidth;
+        maxY[slot] = newY + newHeight;
+        linkCells(slot);
+    }
+    
+    public synchronized boolean contains(long id) {
+        return slotById.containsKey(id);
+    }
+    
+    public synchronized boolean remove(long id) {
+        Integer removed = slotById.remove(id);
+        if (removed == null) {
+            return false;
+        }
+        int slot = removed;
+        unlinkCells(slot);
+        
+        // Move the last slot into the hole so the arrays stay dense
+        int last = --size;
+        if (slot != last) {
+            unlinkCells(last);
+            ids[slot] = ids[last];
+            minX[slot] = minX[last];
+            minY[slot] = minY[last];
+            maxX[slot] = maxX[last];
+            maxY[slot] = maxY[last];
+            slotById.put(ids[slot], slot);
+            linkCells(slot);
+        }
+        return true;
+    }
+    
+    /**
+     * Ids of the notes whose rectangle intersects the given viewport (edges inclusive)
+     */
+    public synchronized long[] query(double queryMinX, double queryMinY, double queryMaxX, double queryMaxY) {
+        long[] result = new long[16];
+        int count = 0;
+        
+        long firstCellX = cell(queryMinX);
+        long lastCellX = cell(queryMaxX);
+        long firstCellY = cell(queryMinY);
+        long lastCellY = cell(queryMaxY);
+        
+        if (cellCount(firstCellX, firstCellY, lastCellX, lastCellY) > cells.size()) {
+            // Viewport covers more cells than are occupied: a straight scan is cheaper
+            for (int slot = 0; slot < size; slot++) {
+                if (intersects(slot, queryMinX, queryMinY, queryMaxX, queryMaxY)) {
+                    result = append(result, count++, ids[slot]);
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+        
+        for (int i = 0; i < oversized.size; i++) {
+            int slot = oversized.values[i];
+            if (intersects(slot, queryMinX, queryMinY, queryMaxX, queryMaxY)) {
+                result = append(result, count++, ids[slot]);
+            }
+        }
+        int stamp = nextStamp();
+        for (long cx = firstCellX; cx <= lastCellX; cx++) {
+            for (long cy = firstCellY; cy <= lastCellY; cy++) {
+                SlotList slots = cells.get(cellKey(cx, cy));
+                if (slots == null) {
+                    continue;
+                }
+                for (int i = 0; i < slots.size; i++) {
+                    int slot = slots.values[i];
+                    if (visitedStamp[slot] == stamp) {
+                        continue;
+                    }
+                    visitedStamp[slot] = stamp;
+                    if (intersects(slot, queryMinX, queryMinY, queryMaxX, queryMaxY)) {
+                        result = append(result, count++, ids[slot]);
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+    
+    /**
+     * Top-left corner of the free width x height spot nearest to the anchor, keeping at least gap
+     * to every note and staying at non-negative coordinates. Candidates are explored best-first by
+     * distance to the anchor: the anchor itself, then the positions just beside each note blocking
+     * a candidate. The work depends on how crowded the area around the anchor is, not on the number
+     * of notes; after maxCandidates blocked candidates the spot below all notes is returned.
+     * Non-finite arguments are treated as missing: the origin, or the default size.
+     */
+    public synchronized double[] findFreeSpot(double anchorX, double anchorY, double width, double height,
+                                              double gap, int maxCandidates) {
+        double w = width > 0 && Double.isFinite(width) ? width : DEFAULT_NOTE_SIZE;
+        double h = height > 0 && Double.isFinite(height) ? height : DEFAULT_NOTE_SIZE;
+        double startX = Double.isFinite(anchorX) ? Math.max(anchorX, 0) : 0;
+        double startY = Double.isFinite(anchorY) ? Math.max(anchorY, 0) : 0;
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(Comparator.comparingDouble(Candidate::distance));
+        Set<Candidate> seen = new HashSet<>();
+        offer(candidates, seen, startX, startY, startX, startY);
+        
+        for (int examined = 0; examined < maxCandidates && !candidates.isEmpty(); examined++) {
+            Candidate candidate = candidates.poll();
+            int blocker = firstOverlap(candidate.x() - gap, candidate.y() - gap,
+                    candidate.x() + w + gap, candidate.y() + h + gap);
+            if (blocker < 0) {
+                return new double[] {candidate.x(), candidate.y()};
+            }
+            offer(candidates, seen, maxX[blocker] + gap, candidate.y(), startX, startY);
+            offer(candidates, seen, minX[blocker] - gap - w, candidate.y(), startX, startY);
+            offer(candidates, seen, candidate.x(), maxY[blocker] + gap, startX, startY);
+            offer(candidates, seen, candidate.x(), minY[blocker] - gap - h, startX, startY);
+        }
+        
+        // Too crowded around the anchor: start a new row below everything
+        double bottom = startY;
+        for (int slot = 0; slot < size; slot++) {
+            bottom = Math.max(bottom, maxY[slot] + gap);
+        }
+        return new double[] {startX, bottom};
+    }
+    
+    public synchronized int size() {
+        return size;
+    }
+    
+    public long getLastAccessMillis() {
+        return lastAccessMillis;
+    }
+    
+    void touch() {
+        lastAccessMillis = System.currentTimeMillis();
+    }
+    
+    private boolean intersects(int slot, double queryMinX, double queryMinY, double queryMaxX, double queryMaxY) {
+        return minX[slot] <= queryMaxX && maxX[slot] >= queryMinX
+                && minY[slot] <= queryMaxY && maxY[slot] >= queryMinY;
+    }
+    
+    // Slot of any note overlapping the open rectangle, or -1 when it is free
+    private int firstOverlap(double queryMinX, double queryMinY, double queryMaxX, double queryMaxY) {
+        long firstCellX = cell(queryMinX);
+        long lastCellX = cell(queryMaxX);
+        long firstCellY = cell(queryMinY);
+        long lastCellY = cell(queryMaxY);
+        if (cellCount(firstCellX, firstCellY, lastCellX, lastCellY) > cells.size()) {
+            for (int slot = 0; slot < size; slot++) {
+                if (overlapsOpen(slot, queryMinX, queryMinY, queryMaxX, queryMaxY)) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+        
+        for (int i = 0; i < oversized.size; i++) {
+            if (overlapsOpen(oversized.values[i], queryMinX, queryMinY, queryMaxX, queryMaxY)) {
+                return oversized.values[i];
+            }
+        }
+        for (long cx = firstCellX; cx <= lastCellX; cx++) {
+            for (long cy = firstCellY; cy <= lastCellY; cy++) {
+                SlotList slots = cells.get(cellKey(cx, cy));
+                if (slots == null) {
+                    continue;
+                }
+                for (int i = 0; i < slots.size; i++) {
+                    if (overlapsOpen(slots.values[i], queryMinX, queryMinY, queryMaxX, queryMaxY)) {
+                        return slots.values[i];
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+    
+    private boolean overlapsOpen(int slot, double queryMinX, double queryMinY, double queryMaxX, double queryMaxY) {
+        return minX[slot] < queryMaxX && maxX[slot] > queryMinX
+                && minY[slot] < queryMaxY && maxY[slot] > queryMinY;
+    }
+    
+    private static void offer(PriorityQueue<Candidate> candidates, Set<Candidate> seen,
+                              double x, double y, double anchorX, double anchorY) {
+        if (x < 0 || y < 0) {
+            return;
+        }
+        Candidate candidate = new Candidate(x, y, Math.hypot(x - anchorX, y - anchorY));
+        if (seen.add(candidate)) {
+            candidates.add(candidate);
+        }
+    }
+    
+    private void linkCells(int slot) {
+        if (isOversized(slot)) {
+            oversized.add(slot);
+            return;
+        }
+        for (long cx = cell(minX[slot]); cx <= cell(maxX[slot]); cx++) {
+            for (long cy = cell(minY[slot]); cy <= cell(maxY[slot]); cy++) {
+                cells.computeIfAbsent(cellKey(cx, cy), key -> new SlotList()).add(slot);
+            }
+        }
+    }
+    
+    private void unlinkCells(int slot) {
+        // The rectangle is unchanged since linkCells, so this takes the same branch
+        if (isOversized(slot)) {
+            oversized.remove(slot);
+            return;
+        }
+        for (long cx = cell(minX[slot]); cx <= cell(maxX[slot]); cx++) {
+            for (long cy = cell(minY[slot]); cy <= cell(maxY[slot]); cy++) {
+                long key = cellKey(cx, cy);
+                SlotList slots = cells.get(key);
+                if (slots != null && slots.remove(slot) && slots.size == 0) {
+                    cells.remove(key);
+                }
+            }
+        }
+    }
+    
+    private boolean isOversized(int slot) {
+        return cellCount(cell(minX[slot]), cell(minY[slot]), cell(maxX[slot]), cell(maxY[slot])) > MAX_LINKED_CELLS;
+    }
+    
+    // Number of cells in the range, or Long.MAX_VALUE when it does not fit in a long
+    private static long cellCount(long firstCellX, long firstCellY, long lastCellX, long lastCellY) {
+        try {
+            return Math.multiplyExact(lastCellX - firstCellX + 1, lastCellY - firstCellY + 1);
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+    
+    private long cell(double coordinate) {
+        // NaN lands in cell 0, infinities at the clamped edge
+        long cell = (long) Math.floor(coordinate / cellSize);
+        return Math.max(-MAX_CELL, Math.min(MAX_CELL - 1, cell));
+    }
+    
+    private static long cellKey(long cx, long cy) {
+        return (cx << 32) ^ (cy & 0xffffffffL);
+    }
+    
+    private int nextStamp() {
+        if (++queryStamp == Integer.MAX_VALUE) {
+            Arrays.fill(visitedStamp, 0);
+            queryStamp = 1;
+        }
+        return queryStamp;
+    }
+    
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int grown = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, grown);
+        minX = Arrays.copyOf(minX, grown);
+        minY = Arrays.copyOf(minY, grown);
+        maxX = Arrays.copyOf(maxX, grown);
+        maxY = Arrays.copyOf(maxY, grown);
+        visitedStamp = Arrays.copyOf(visitedStamp, grown);
+    }
+    
+    private static long[] append(long[] array, int index, long value) {
+        if (index == array.length) {
+            array = Arrays.copyOf(array, array.length * 2);
+        }
+        array[index] = value;
+        return array;
+    }
+    
+    private record Candidate(double x, double y, double distance) {
+    }
+    
+    /**
+     * Growable list of slots in one cell
+     */
+    private static final class SlotList {
+        private int[] values = new int[4];
+        private int size;
+        
+        void add(int slot) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = slot;
+        }
+        
+        boolean remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == slot) {
+                    values[i] = values[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.notes.service;
+
+import com.notes.repository.BoardVersionRepository;
+import com.notes.repository.BoardVersionRepository.BoardVersion;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-board version counters. The counter lives in boards.version and is incremented in the
+ * same transaction as every change to a board or its notes; this class mirrors it in memory,
+ * so checking whether a board changed costs a map lookup once the board has been seen.
+ * Caches of derived board data tag their entries with the version they were computed at
+ * and treat any other version as stale.
+ */
+@Component
+public class BoardVersions {
+
+    @Value("${notes.board-versions.max-tracked-boards:100000}")
+    private int maxTrackedBoards;
+
+    private final BoardVersionRepository boardVersionRepository;
+    private final Map<Long, Mirror> mirrors = new ConcurrentHashMap<>();
+
+    @Autowired
+    public BoardVersions(BoardVersionRepository boardVersionRepository) {
+        this.boardVersionRepository = boardVersionRepository;
+    }
+
+    /**
+     * Current version of the board, 0 if it does not exist
+     */
+    public long current(Long boardId) {
+        Mirror mirror = mirror(boardId);
+        return mirror != null ? mirror.version().get() : 0;
+    }
+
+    /**
+     * Current version of the board if it exists and belongs to the user
+     */
+    public OptionalLong versionFor(Long boardId, Long userId) {
+        Mirror mirror = mirror(boardId);
+        if (mirror == null || mirror.userId() != userId) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(mirror.version().get());
+    }
+
+    /**
+     * Increment the board's version; must run inside the transaction that changes the board or its notes.
+     * Returns the version the change will have once committed, 0 if the board does not exist.
+     */
+    public long boardChanged(Long boardId) {
+        if (boardId == null) {
+            return 0;
+        }
+        Long version = boardVersionRepository.increment(boardId);
+        if (version == null) {
+            return 0;
+        }
+        TransactionCallbacks.afterCommit(() -> advance(boardId, version));
+        return version;
+    }
+
+    /**
+     * Increment the version of every board holding one of the notes, e.g. after geometry-only updates;
+     * returns the ids of those boards
+     */
+    public Set<Long> notesMoved(Collection<Long> noteIds) {
+        if (noteIds.isEmpty()) {
+            return Set.of();
+        }
+        Map<Long, Long> versions = boardVersionRepository.incrementBoardsOfNotes(noteIds);
+        TransactionCallbacks.afterCommit(() -> versions.forEach(this::advance));
+        return versions.keySet();
+    }
+
+    public void boardDeleted(Long boardId) {
+        TransactionCallbacks.afterCommit(() -> mirrors.remove(boardId));
+    }
+
+    public void userBoardsDeleted(Long userId) {
+        TransactionCallbacks.afterCommit(() -> mirrors.values().removeIf(mirror -> mirror.userId() == userId));
+    }
+
+    /**
+     * Forget the mirrored version of a board another node changed; the next check reloads it
+     */
+    public void evict(Long boardId) {
+        mirrors.remove(boardId);
+    }
+
+    public void clear() {
+        mirrors.clear();
+    }
+
+    private Mirror mirror(Long boardId) {
+        Mirror mirror = mirrors.get(boardId);
+        if (mirror != null) {
+            return mirror;
+        }
+        if (mirrors.size() >= maxTrackedBoards) {
+            mirrors.clear();
+        }
+        // Loaded under the map's lock for this key, so a commit that lands meanwhile
+        // either is already in the row read here or advances the entry right after it is stored
+        return mirrors.computeIfAbsent(boardId, id -> {
+            BoardVersion row = boardVersionRepository.find(id);
+            return row != null ? new Mirror(row.userId(), new AtomicLong(row.version())) : null;
+        });
+    }
+
+    private void advance(Long boardId, long version) {
+        mirrors.computeIfPresent(boardId, (id, mirror) -> {
+            mirror.version().accumulateAndGet(version, Math::max);
+            return mirror;
+        });
+    }
+
+    private record Mirror(long userId, AtomicLong version) {
+    }
+}
@@ -0,0 +1,267 @@
+package com.notes.service;
+
+import com.notes.dto.NoteView;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Materialized note lists of recently loaded boards, one immutable snapshot per board tagged with
+ * the board version it was read at. Reads are a map lookup and a version check without locking;
+ * a snapshot whose version is no longer current is never served. Note writes patch the snapshot
+ * after commit when it is exactly one version behind, anything else simply leaves it stale.
+ * Memory is bounded by estimated snapshot bytes, overall and per user, evicting least recently used boards.
+ */
+@Component
+public class BoardViewCache {
+
+    // Rough per-object costs on a 64-bit JVM with compressed oops
+    private static final long SNAPSHOT_OVERHEAD_BYTES = 96;
+    private static final long NOTE_OVERHEAD_BYTES = 160;
+    private static final long STRING_OVERHEAD_BYTES = 40;
+    private static final long REFERENCE_BYTES = 4;
+
+    @Value("${notes.board-cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${notes.board-cache.max-bytes-per-user:8388608}")
+    private long maxBytesPerUser;
+
+    private final BoardVersions boardVersions;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    // Guarded by this: byte totals change only together with the entries they account for
+    private final Map<Long, Long> bytesByUser = new HashMap<>();
+    private volatile long totalBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter userEvictions;
+    private final Counter patches;
+
+    @Autowired
+    public BoardViewCache(BoardVersions boardVersions, MeterRegistry meterRegistry) {
+        this.boardVersions = boardVersions;
+        this.hits = meterRegistry.counter("notes.board-cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("notes.board-cache.requests", "result", "miss");
+        this.sizeEvictions = meterRegistry.counter("notes.board-cache.evictions", "cause", "size");
+        this.userEvictions = meterRegistry.counter("notes.board-cache.evictions", "cause", "user-limit");
+        this.patches = meterRegistry.counter("notes.board-cache.patches");
+        Gauge.builder("notes.board-cache.bytes", this, cache -> cache.totalBytes)
+                .description("Estimated heap held by cached board snapshots")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("notes.board-cache.entries", entries, Map::size)
+                .register(meterRegistry);
+        Gauge.builder("notes.board-cache.hit_ratio", this, BoardViewCache::getHitRatio)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Notes of the board if a snapshot at the board's current version is cached, otherwise null
+     */
+    public List<NoteView> get(Long boardId, Long userId) {
+        Entry entry = entries.get(boardId);
+        if (entry != null) {
+            Snapshot snapshot = entry.snapshot;
+            if (snapshot.userId() == userId && snapshot.version() == boardVersions.current(boardId)) {
+                entry.lastAccessMillis = System.currentTimeMillis();
+                hits.increment();
+                return snapshot.notes();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Cache the notes of a board read at the given version; the version must be read before the notes
+     */
+    public List<NoteView> put(Long boardId, Long userId, long version, List<NoteView> notes) {
+        Snapshot snapshot = new Snapshot(userId, version, List.copyOf(notes), estimateBytes(notes));
+        if (snapshot.bytes() <= maxBytesPerUser && snapshot.bytes() <= maxBytes) {
+            store(boardId, snapshot);
+        }
+        return snapshot.notes();
+    }
+
+    /**
+     * Replace or insert a note in the board's snapshot once the write that produced the version commits
+     */
+    public void noteSaved(NoteView note, long version) {
+        Long boardId = note.boardId();
+        if (boardId == null || version == 0) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> patch(boardId, version, notes -> {
+            List<NoteView> patched = new ArrayList<>(notes.size() + 1);
+            boolean placed = false;
+            for (NoteView existing : notes) {
+                if (!placed && existing.id() >= note.id()) {
+                    patched.add(note);
+                    placed = true;
+                    if (existing.id().equals(note.id())) {
+                        continue;
+                    }
+                }
+                patched.add(existing);
+            }
+            if (!placed) {
+                patched.add(note);
+            }
+            return patched;
+        }));
+    }
+
+    public void noteDeleted(Long noteId, Long boardId, long version) {
+        if (boardId == null || version == 0) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> patch(boardId, version,
+                notes -> notes.stream().filter(note -> !note.id().equals(noteId)).toList()));
+    }
+
+    /**
+     * A change to the board itself, such as a rename, leaves its notes as they are
+     */
+    public void boardChanged(Long boardId, long version) {
+        if (version == 0) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> patch(boardId, version, notes -> notes));
+    }
+
+    public void boardDeleted(Long boardId) {
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (this) {
+                remove(boardId);
+            }
+        });
+    }
+
+    public void userDeleted(Long userId) {
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (this) {
+                List<Long> boardIds = entries.entrySet().stream()
+                        .filter(entry -> entry.getValue().snapshot.userId() == userId)
+                        .map(Map.Entry::getKey)
+                        .toList();
+                boardIds.forEach(this::remove);
+            }
+        });
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytesByUser.clear();
+        totalBytes = 0;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public double getHitRatio() {
+        double requests = hits.count() + misses.count();
+        return requests == 0 ? 0.0 : hits.count() / requests;
+    }
+
+    static long estimateBytes(Collection<NoteView> notes) {
+        long bytes = SNAPSHOT_OVERHEAD_BYTES;
+        for (NoteView note : notes) {
+            bytes += REFERENCE_BYTES + NOTE_OVERHEAD_BYTES
+                    + stringBytes(note.title()) + stringBytes(note.content()) + stringBytes(note.color());
+            for (String tag : note.tags()) {
+                bytes += REFERENCE_BYTES + stringBytes(tag);
+            }
+        }
+        return bytes;
+    }
+
+    private static long stringBytes(String value) {
+        // Latin-1 strings take one byte per char, others two; assume the worst
+        return value == null ? 0 : STRING_OVERHEAD_BYTES + 2L * value.length();
+    }
+
+    private void patch(Long boardId, long version, UnaryOperator<List<NoteView>> change) {
+        synchronized (this) {
+            Entry entry = entries.get(boardId);
+            if (entry == null || entry.snapshot.version() != version - 1) {
+                return;
+            }
+            List<NoteView> notes = change.apply(entry.snapshot.notes());
+            long bytes = notes == entry.snapshot.notes() ? entry.snapshot.bytes() : estimateBytes(notes);
+            store(boardId, new Snapshot(entry.snapshot.userId(), version, List.copyOf(notes), bytes));
+            patches.increment();
+        }
+    }
+
+    private synchronized void store(Long boardId, Snapshot snapshot) {
+        remove(boardId);
+        long userId = snapshot.userId();
+        while (bytesByUser.getOrDefault(userId, 0L) + snapshot.bytes() > maxBytesPerUser
+                && evictLeastRecentlyUsed(userId)) {
+            userEvictions.increment();
+        }
+        while (totalBytes + snapshot.bytes() > maxBytes && evictLeastRecentlyUsed(null)) {
+            sizeEvictions.increment();
+        }
+        entries.put(boardId, new Entry(snapshot));
+        bytesByUser.merge(userId, snapshot.bytes(), Long::sum);
+        totalBytes += snapshot.bytes();
+    }
+
+    // Evict the least recently used board, of the given user only if userId is not null
+    private boolean evictLeastRecentlyUsed(Long userId) {
+        Long victim = null;
+        long oldest = Long.MAX_VALUE;
+        for (Map.Entry<Long, Entry> candidate : entries.entrySet()) {
+            Entry entry = candidate.getValue();
+            if ((userId == null || entry.snapshot.userId() == userId) && entry.lastAccessMillis < oldest) {
+                oldest = entry.lastAccessMillis;
+                victim = candidate.getKey();
+            }
+        }
+        if (victim == null) {
+            return false;
+        }
+        remove(victim);
+        return true;
+    }
+
+    private void remove(Long boardId) {
+        Entry removed = entries.remove(boardId);
+        if (removed != null) {
+            Snapshot snapshot = removed.snapshot;
+            bytesByUser.computeIfPresent(snapshot.userId(), (id, bytes) -> bytes == snapshot.bytes() ? null : bytes - snapshot.bytes());
+            totalBytes -= snapshot.bytes();
+        }
+    }
+
+    /**
+     * Notes of one board as read at one board version; never modified once created
+     */
+    private record Snapshot(long userId, long version, List<NoteView> notes, long bytes) {
+    }
+
+    private static final class Entry {
+        final Snapshot snapshot;
+        volatile long lastAccessMillis;
+
+        Entry(Snapshot snapshot) {
+            this.snapshot = snapshot;
+            this.lastAccessMillis = System.currentTimeMillis();
+        }
+    }
+}
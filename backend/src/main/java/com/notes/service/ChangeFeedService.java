@@ -0,0 +1,104 @@
+package com.notes.service;
+
+import com.notes.dto.ChangeCursor;
+import com.notes.dto.ChangedBoard;
+import com.notes.dto.NoteChanges;
+import com.notes.dto.NoteView;
+import com.notes.dto.Tombstone;
+import com.notes.entity.User;
+import com.notes.repository.ChangeFeedRepository;
+import com.notes.repository.ChangeFeedRepository.Change;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Delta sync: what changed in the user's boards and notes since a cursor. Every write takes the
+ * user's next change_seq while holding the user's row lock, so a user's changes become visible in
+ * sequence order and a cursor never skips a change that commits later.
+ */
+@Service
+public class ChangeFeedService {
+
+    private static final Comparator<Change<?>> FEED_ORDER = Comparator
+            .<Change<?>>comparingLong(Change::seq)
+            .thenComparingInt(Change::kind)
+            .thenComparingLong(Change::id);
+
+    @Value("${notes.changes.tombstone-retention-days:30}")
+    private long tombstoneRetentionDays;
+
+    private final ChangeFeedRepository changeFeedRepository;
+    private final DemoSandboxStore demoSandboxes;
+
+    @Autowired
+    public ChangeFeedService(ChangeFeedRepository changeFeedRepository, DemoSandboxStore demoSandboxes) {
+        this.changeFeedRepository = changeFeedRepository;
+        this.demoSandboxes = demoSandboxes;
+    }
+
+    /**
+     * Up to limit changes after the cursor, oldest first. A cursor older than the tombstone
+     * retention window cannot tell what was deleted since, so the client is reset to a full resync.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public NoteChanges getChanges(User user, ChangeCursor since, int limit) {
+        DemoSandbox sandbox = demoSandboxes.get(user);
+        if (sandbox != null) {
+            // Sandbox writes are not sequenced; a sandbox is small, so always send all of it
+            return sandbox.update(() -> new NoteChanges(
+                    sandbox.getBoards().stream()
+                            .map(board -> new ChangedBoard(board.getId(), board.getName(), board.getCreatedAt(), board.getUpdatedAt()))
+                            .toList(),
+                    sandbox.getNotes().stream().map(NoteView::of).toList(),
+                    List.of(),
+                    ChangeCursor.START.encode(),
+                    false,
+                    true));
+        }
+
+        boolean reset = !since.equals(ChangeCursor.START) && since.seq() < changeFeedRepository.findPurgedThrough();
+        ChangeCursor after = reset ? ChangeCursor.START : since;
+
+        // limit + 1 of each kind is always enough to fill the page and tell whether more follow
+        List<Change<?>> merged = new ArrayList<>();
+        merged.addAll(changeFeedRepository.findBoardChanges(user.getId(), after, limit + 1));
+        merged.addAll(changeFeedRepository.findNoteChanges(user.getId(), after, limit + 1));
+        merged.addAll(changeFeedRepository.findTombstones(user.getId(), after, limit + 1));
+        merged.sort(FEED_ORDER);
+
+        boolean hasMore = merged.size() > limit;
+        List<Change<?>> page = hasMore ? merged.subList(0, limit) : merged;
+
+        List<ChangedBoard> boards = new ArrayList<>();
+        List<NoteView> notes = new ArrayList<>();
+        List<Tombstone> deleted = new ArrayList<>();
+        for (Change<?> change : page) {
+            switch (change.kind()) {
+                case ChangeCursor.KIND_BOARD -> boards.add((ChangedBoard) change.value());
+                case ChangeCursor.KIND_NOTE -> notes.add((NoteView) change.value());
+                default -> deleted.add((Tombstone) change.value());
+            }
+        }
+
+        ChangeCursor next = after;
+        if (!page.isEmpty()) {
+            Change<?> last = page.get(page.size() - 1);
+            next = new ChangeCursor(last.seq(), last.kind(), last.id());
+        }
+        return new NoteChanges(boards, notes, deleted, next.encode(), hasMore, reset);
+    }
+
+    @Scheduled(fixedDelayString = "${notes.changes.purge-interval-ms:3600000}")
+    public void purgeTombstones() {
+        changeFeedRepository.purgeTombstonesBefore(LocalDateTime.now().minusDays(tombstoneRetentionDays));
+    }
+}
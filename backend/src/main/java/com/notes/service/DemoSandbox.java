@@ -0,0 +1,196 @@
+package com.notes.service;
+
+import com.notes.dto.NoteGeometryRequest;
+import com.notes.entity.Board;
+import com.notes.entity.Note;
+import com.notes.entity.User;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Boards and notes of one demo session, held only in memory.
+ * Entities stored here are never persisted; ids are local to the sandbox.
+ */
+public class DemoSandbox {
+
+    private final User user;
+    private final String sessionId;
+    private final Map<Long, Board> boards = new LinkedHashMap<>();
+    private final Map<Long, Note> notes = new LinkedHashMap<>();
+    private long nextBoardId = 1;
+    private long nextNoteId = 1;
+    private volatile long lastAccessMillis;
+
+    public DemoSandbox(User user, String sessionId) {
+        this.user = user;
+        this.sessionId = sessionId;
+        touch();
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    /**
+     * Random secret of the demo session, carried as the id (jti) of its token
+     */
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public long getLastAccessMillis() {
+        return lastAccessMillis;
+    }
+
+    void touch() {
+        this.lastAccessMillis = System.currentTimeMillis();
+    }
+
+    public synchronized List<Board> getBoards() {
+        return new ArrayList<>(boards.values());
+    }
+
+    public synchronized Optional<Board> getBoard(Long id) {
+        return Optional.ofNullable(boards.get(id));
+    }
+
+    public synchronized Board addBoard(Board board) {
+        board.setId(nextBoardId++);
+        board.setUser(user);
+        boards.put(board.getId(), board);
+        return board;
+    }
+
+    public synchronized boolean removeBoard(Long id) {
+        Board removed = boards.remove(id);
+        if (removed == null) {
+            return false;
+        }
+        notes.values().removeIf(note -> id.equals(note.getBoardId()));
+        return true;
+    }
+
+    public synchronized int countBoards() {
+        return boards.size();
+    }
+
+    public synchronized List<Note> getNotes() {
+        return new ArrayList<>(notes.values());
+    }
+
+    public synchronized List<Note> getNotes(Long boardId) {
+        List<Note> result = new ArrayList<>();
+        for (Note note : notes.values()) {
+            if (boardId.equals(note.getBoardId())) {
+                result.add(note);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Notes of the board intersecting the viewport; a sandbox is small enough for a straight scan
+     */
+    public synchronized List<Note> getNotesInViewport(Long boardId, double minX, double minY, double maxX, double maxY) {
+        List<Note> result = new ArrayList<>();
+        for (Note note : getNotes(boardId)) {
+            double width = note.getWidth() != null && note.getWidth() > 0 ? note.getWidth() : BoardSpatialIndex.DEFAULT_NOTE_SIZE;
+            double height = note.getHeight() != null && note.getHeight() > 0 ? note.getHeight() : BoardSpatialIndex.DEFAULT_NOTE_SIZE;
+            if (note.getPositionX() <= maxX && note.getPositionX() + width >= minX
+                    && note.getPositionY() <= maxY && note.getPositionY() + height >= minY) {
+                result.add(note);
+            }
+        }
+        return result;
+    }
+
+    public synchronized Optional<Note> getNote(Long id) {
+        return Optional.ofNullable(notes.get(id));
+    }
+
+    public synchronized Note addNote(Note note) {
+        note.setId(nextNoteId++);
+        note.setUser(user);
+        notes.put(note.getId(), note);
+        if (note.getBoard() != null) {
+            note.getBoard().getNotes().add(note);
+        }
+        return note;
+    }
+
+    public synchronized boolean removeNote(Long id) {
+        Note removed = notes.remove(id);
+        if (removed == null) {
+            return false;
+        }
+        if (removed.getBoard() != null) {
+            removed.getBoard().getNotes().remove(removed);
+        }
+        return true;
+    }
+
+    public synchronized List<Note> getNotesByTags(Set<String> tags, boolean matchAll, Long boardId) {
+        List<Note> result = new ArrayList<>();
+        for (Note note : notes.values()) {
+            if (boardId != null && !boardId.equals(note.getBoardId())) {
+                continue;
+            }
+            boolean matches = matchAll
+                    ? note.getTags().containsAll(tags)
+                    : tags.stream().anyMatch(note.getTags()::contains);
+            if (matches) {
+                result.add(note);
+            }
+        }
+        return result;
+    }
+
+    public synchronized Note updateNote(Long id, Note details) {
+        Note note = notes.get(id);
+        if (note == null) {
+            return null;
+        }
+        note.setTitle(details.getTitle());
+        note.setContent(details.getContent());
+        note.setPositionX(details.getPositionX());
+        note.setPositionY(details.getPositionY());
+        note.setWidth(details.getWidth());
+        note.setHeight(details.getHeight());
+        note.setColor(details.getColor());
+        note.setTags(details.getTags());
+        return note;
+    }
+
+    public synchronized boolean updateGeometry(Long id, NoteGeometryRequest geometry) {
+        Note note = notes.get(id);
+        if (note == null) {
+            return false;
+        }
+        if (geometry.getPositionX() != null) {
+            note.setPositionX(geometry.getPositionX());
+        }
+        if (geometry.getPositionY() != null) {
+            note.setPositionY(geometry.getPositionY());
+        }
+        if (geometry.getWidth() != null) {
+            note.setWidth(geometry.getWidth());
+        }
+        if (geometry.getHeight() != null) {
+            note.setHeight(geometry.getHeight());
+        }
+        return true;
+    }
+
+    /**
+     * Run a mutation of sandbox entities under the sandbox lock
+     */
+    public synchronized <T> T update(Supplier<T> mutation) {
+        return mutation.get();
+    }
+}
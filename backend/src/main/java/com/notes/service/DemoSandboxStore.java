@@ -0,0 +1,119 @@
+package com.notes.service;
+
+import com.notes.entity.Board;
+import com.notes.entity.User;
+import com.notes.exception.DemoSessionExpiredException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded, TTL-evicted store of demo sandboxes. Every demo login gets its own sandbox,
+ * identified by a random negative user id that is carried in the demo JWT,
+ * so demo traffic never reads or writes the database. The token's id must also match the
+ * sandbox's session secret, so a token only ever opens the sandbox it was issued for,
+ * even after a restart or on another node where that user id may belong to someone else.
+ */
+@Component
+public class DemoSandboxStore {
+
+    @Value("${demo.sandbox.max-sandboxes:1000}")
+    private int maxSandboxes;
+
+    @Value("${demo.sandbox.ttl-minutes:120}")
+    private long ttlMinutes;
+
+    private final Map<Long, DemoSandbox> sandboxes = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * True for users that belong to a demo sandbox rather than the users table
+     */
+    public static boolean isSandboxUser(User user) {
+        return user != null && user.getId() != null && user.getId() < 0;
+    }
+
+    /**
+     * Create a sandbox seeded with the default Main Board and notes
+     */
+    public DemoSandbox create(String email) {
+        evictExpired();
+        while (sandboxes.size() >= maxSandboxes) {
+            evictLeastRecentlyUsed();
+        }
+
+        User sandboxUser = new User();
+        sandboxUser.setEmail(email);
+        DemoSandbox sandbox = new DemoSandbox(sandboxUser, UUID.randomUUID().toString());
+        do {
+            // Setting the sign bit keeps the id negative, so it can never be a users row
+            sandboxUser.setId(random.nextLong() | Long.MIN_VALUE);
+        } while (sandboxes.putIfAbsent(sandboxUser.getId(), sandbox) != null);
+
+        Board mainBoard = sandbox.addBoard(new Board(DemoUserService.MAIN_BOARD_NAME, sandboxUser));
+        DemoUserService.buildDefaultNotes(sandboxUser, mainBoard).forEach(sandbox::addNote);
+        return sandbox;
+    }
+
+    /**
+     * Sandbox of the given user, or null if the user is not a sandbox user. A sandbox user
+     * whose sandbox expired since the request was authenticated gets DemoSessionExpiredException,
+     * so the request never falls through to the database with a synthetic user id.
+     */
+    public DemoSandbox get(User user) {
+        if (!isSandboxUser(user)) {
+            return null;
+        }
+        DemoSandbox sandbox = get(user.getId());
+        if (sandbox == null) {
+            throw new DemoSessionExpiredException();
+        }
+        return sandbox;
+    }
+
+    public DemoSandbox get(Long sandboxUserId) {
+        DemoSandbox sandbox = sandboxes.get(sandboxUserId);
+        if (sandbox != null) {
+            sandbox.touch();
+        }
+        return sandbox;
+    }
+
+    /**
+     * True if the sandbox exists and was created for the session with the given secret
+     */
+    public boolean isActiveSession(Long sandboxUserId, String sessionId) {
+        DemoSandbox sandbox = sandboxes.get(sandboxUserId);
+        return sandbox != null && sessionId != null && MessageDigest.isEqual(
+                sandbox.getSessionId().getBytes(StandardCharsets.UTF_8),
+                sessionId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void remove(Long sandboxUserId) {
+        sandboxes.remove(sandboxUserId);
+    }
+
+    public int size() {
+        return sandboxes.size();
+    }
+
+    @Scheduled(fixedDelayString = "${demo.sandbox.eviction-interval-ms:60000}")
+    public void evictExpired() {
+        long cutoff = System.currentTimeMillis() - ttlMinutes * 60_000L;
+        sandboxes.values().removeIf(sandbox -> sandbox.getLastAccessMillis() < cutoff);
+    }
+
+    private void evictLeastRecentlyUsed() {
+        sandboxes.entrySet().stream()
+                .min(Comparator.comparingLong(entry -> entry.getValue().getLastAccessMillis()))
+                .ifPresent(entry -> sandboxes.remove(entry.getKey()));
+    }
+}
@@ -4,7 +4,9 @@ import com.notes.entity.Board;
 import com.notes.entity.Note;
 import com.notes.entity.User;
 import com.notes.repository.BoardRepository;
+import com.notes.repository.ChangeFeedRepository;
 import com.notes.repository.NoteRepository;
+import com.notes.repository.UserOnboardingRepository;
 import com.notes.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -19,19 +21,34 @@ import java.util.Optional;
 public class DemoUserService {
 
     private static final String DEMO_USER_EMAIL = "demo@example.com";
-    private static final String MAIN_BOARD_NAME = "Main Board";
+    static final String MAIN_BOARD_NAME = "Main Board";
 
     private final UserRepository userRepository;
     private final BoardRepository boardRepository;
     private final NoteRepository noteRepository;
+    private final BoardService boardService;
+    private final NoteSearchService noteSearch;
+    private final ChangeFeedRepository changeFeed;
+    private final InvalidationBus invalidationBus;
+    private final UserOnboardingRepository onboarding;
 
     @Autowired
     public DemoUserService(UserRepository userRepository, 
                           BoardRepository boardRepository, 
-                          NoteRepository noteRepository) {
+                          NoteRepository noteRepository,
+                          BoardService boardService,
+                          NoteSearchService noteSearch,
+                          ChangeFeedRepository changeFeed,
+                          InvalidationBus invalidationBus,
+                          UserOnboardingRepository onboarding) {
         this.userRepository = userRepository;
         this.boardRepository = boardRepository;
         this.noteRepository = noteRepository;
+        this.boardService = boardService;
+        this.noteSearch = noteSearch;
+        this.changeFeed = changeFeed;
+        this.invalidationBus = invalidationBus;
+        this.onboarding = onboarding;
     }
 
     /**
@@ -56,62 +73,27 @@ public class DemoUserService {
     }
 
     /**
-     * Clean all data for demo user (boards and notes)
+     * Clean all database data of the shared demo account (boards and notes).
+     * Demo sessions now live in in-memory sandboxes, so this only removes leftovers.
+     * Not transactional on purpose: notes are deleted in short chunked transactions.
      */
-    @Transactional
     public void cleanupDemoUserData() {
         Optional<User> demoUserOpt = getDemoUser();
         if (demoUserOpt.isPresent()) {
             User demoUser = demoUserOpt.get();
             
-            // Delete all notes for demo user first (due to foreign key constraints)
-            noteRepository.deleteAllByUser(demoUser);
-            
-            // Delete all boards for demo user
-            boardRepository.deleteAllByUser(demoUser);
+            // Bulk deletes, notes first in chunks, then boards
+            boardService.deleteAllBoardsAndNotes(demoUser);
             
             System.out.println("Demo user data cleaned up successfully");
         }
     }
 
-    /**
-     * Initialize demo user data - create Main Board with default notes
-     */
-    @Transactional
-    public void initializeDemoUserData() {
-        Optional<User> demoUserOpt = getDemoUser();
-        if (demoUserOpt.isEmpty()) {
-            System.out.println("Demo user not found, skipping initialization");
-            return;
-        }
-
-        User demoUser = demoUserOpt.get();
-        
-        // Check if Main Board already exists
-        Optional<Board> existingBoard = boardRepository.findByNameAndUser(MAIN_BOARD_NAME, demoUser);
-        if (existingBoard.isPresent()) {
-            System.out.println("Main Board already exists for demo user, skipping initialization");
-            return;
-        }
-
-        // Create Main Board
-        Board mainBoard = new Board();
-        mainBoard.setName(MAIN_BOARD_NAME);
-        mainBoard.setCreatedAt(LocalDateTime.now());
-        mainBoard.setUser(demoUser);
-        mainBoard.setNotes(new ArrayList<>());
-        
-        Board savedBoard = boardRepository.save(mainBoard);
-        
-        // Create default notes
-        createDefaultNotes(demoUser, savedBoard);
-        
-        System.out.println("Demo user data initialized successfully");
-    }
-
     /**
      * Initialize regular user data - create Main Board with default notes (one-time only)
-     * This is called during user registration and only executes once
+     * Called by UserOnboardingWorker after registration. The user_onboarding row claimed here commits
+     * together with the seeded data, so retries and duplicate events never seed twice; users from before
+     * that table are recognized by their Main Board.
      */
     @Transactional
     public void initializeUserData(User user) {
@@ -120,9 +102,14 @@ public class DemoUserService {
             return;
         }
 
-        // Skip if this is the demo user (demo user has its own logic)
+        // Skip if this is the demo user (demo sessions are seeded in memory by DemoSandboxStore)
         if (isDemoUser(user)) {
-            System.out.println("Demo user detected, using demo user initialization instead");
+            System.out.println("Demo user detected, skipping database initialization");
+            return;
+        }
+        
+        if (!onboarding.claim(user.getId())) {
+            System.out.println("Default data already seeded for user " + user.getEmail() + ", skipping initialization");
             return;
         }
         
@@ -133,6 +120,9 @@ public class DemoUserService {
             return;
         }
 
+        // Sequence the seeded rows like any other write, so change feeds and board list ETags pick them up
+        changeFeed.nextChangeSeq(user.getId());
+        
         // Create Main Board
         Board mainBoard = new Board();
         mainBoard.setName(MAIN_BOARD_NAME);
@@ -142,17 +132,21 @@ public class DemoUserService {
         
         Board savedBoard = boardRepository.save(mainBoard);
         
-        // Create default notes (same as demo user)
-        createDefaultNotes(user, savedBoard);
+        // Create default notes (same as demo sandboxes)
+        List<Note> notes = buildDefaultNotes(user, savedBoard);
+        noteRepository.saveAll(notes);
+        savedBoard.getNotes().addAll(notes);
+        noteSearch.userChanged(user.getId());
+        invalidationBus.notesChanged(user.getId(), savedBoard.getId());
         
         System.out.println("User data initialized successfully for " + user.getEmail());
     }
 
 
     /**
-     * Create the three default notes for demo user
+     * Build (without saving) the three default notes shown on a new Main Board
      */
-    private void createDefaultNotes(User demoUser, Board board) {
+    static List<Note> buildDefaultNotes(User demoUser, Board board) {
         List<Note> notes = new ArrayList<>();
         
         // Note 1: Welcome to Notes Management!
@@ -200,11 +194,6 @@ public class DemoUserService {
         note3.setTags(new ArrayList<>());
         notes.add(note3);
         
-        // Save all notes
-        noteRepository.saveAll(notes);
-        
-        // Update board with notes
-        board.setNotes(notes);
-        boardRepository.save(board);
+        return notes;
     }
 }
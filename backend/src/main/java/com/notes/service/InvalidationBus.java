@@ -0,0 +1,228 @@
+package com.notes.service;
+
+import com.notes.entity.Board;
+import com.notes.entity.User;
+import com.notes.security.TokenRevocationList;
+import com.notes.security.UserCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Cross-node invalidation of the in-memory caches. Writers publish what they changed with
+ * pg_notify on the connection of their own transaction; PostgreSQL delivers a notification only
+ * when that transaction commits, and drops it on rollback. Every node listens on the channel
+ * (see InvalidationListener) and applies the events of other nodes to its local caches,
+ * which the writing node has already updated itself after commit.
+ */
+@Component
+public class InvalidationBus {
+
+    static final String NOTES = "notes";
+    static final String BOARD = "board";
+    static final String BOARD_DELETED = "board-deleted";
+    static final String USER_BOARDS_DELETED = "user-boards-deleted";
+    static final String USER = "user";
+    static final String TOKEN_REVOKED = "token-revoked";
+
+    @Value("${notes.invalidation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${notes.invalidation.channel:notes_invalidation}")
+    private String channel;
+
+    // Identifies this node's own notifications, which come back on its listening connection too
+    private final String origin = UUID.randomUUID().toString().substring(0, 8);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BoardVersions boardVersions;
+    private final BoardViewCache boardViews;
+    private final NoteSpatialIndexCache spatialIndex;
+    private final NoteSearchService noteSearch;
+    private final UserCache userCache;
+    private final TokenRevocationList revocationList;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final Counter publishedCounter;
+    private final Counter receivedCounter;
+    private final Counter flushCounter;
+
+    @Autowired
+    public InvalidationBus(JdbcTemplate jdbcTemplate,
+                           BoardVersions boardVersions,
+                           BoardViewCache boardViews,
+                           NoteSpatialIndexCache spatialIndex,
+                           NoteSearchService noteSearch,
+                           UserCache userCache,
+                           TokenRevocationList revocationList,
+                           EntityManagerFactory entityManagerFactory,
+                           MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.boardVersions = boardVersions;
+        this.boardViews = boardViews;
+        this.spatialIndex = spatialIndex;
+        this.noteSearch = noteSearch;
+        this.userCache = userCache;
+        this.revocationList = revocationList;
+        this.entityManagerFactory = entityManagerFactory;
+        this.publishedCounter = meterRegistry.counter("notes.invalidation.published");
+        this.receivedCounter = meterRegistry.counter("notes.invalidation.received");
+        this.flushCounter = meterRegistry.counter("notes.invalidation.flushes");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    /**
+     * A note of the user was created, edited or deleted; boardId is null for notes without a board
+     */
+    public void notesChanged(Long userId, Long boardId) {
+        publish(new Event(origin, NOTES, userId, boardId, null));
+    }
+
+    /**
+     * The board was renamed or its notes were moved
+     */
+    public void boardChanged(Long boardId) {
+        publish(new Event(origin, BOARD, null, boardId, null));
+    }
+
+    public void boardsChanged(Collection<Long> boardIds) {
+        boardIds.forEach(this::boardChanged);
+    }
+
+    public void boardDeleted(Long userId, Long boardId) {
+        publish(new Event(origin, BOARD_DELETED, userId, boardId, null));
+    }
+
+    public void userBoardsDeleted(Long userId) {
+        publish(new Event(origin, USER_BOARDS_DELETED, userId, null, null));
+    }
+
+    /**
+     * The account was created or changed
+     */
+    public void userChanged(Long userId, String email) {
+        publish(new Event(origin, USER, userId, null, email));
+    }
+
+    public void tokenRevoked(String tokenId, long expiresAtMillis) {
+        // The expiry travels in the id field, the token id in the key
+        publish(new Event(origin, TOKEN_REVOKED, null, expiresAtMillis, tokenId));
+    }
+
+    /**
+     * Apply a notification received on the channel; events published by this node are skipped
+     */
+    void receive(String payload) {
+        Event event = Event.decode(payload);
+        if (event == null || event.origin().equals(origin)) {
+            return;
+        }
+        receivedCounter.increment();
+        apply(event);
+    }
+
+    /**
+     * Drop everything cached locally, after notifications may have been missed
+     */
+    void flushAll() {
+        boardVersions.clear();
+        boardViews.clear();
+        spatialIndex.clear();
+        noteSearch.clear();
+        userCache.evictAll();
+        entityManagerFactory.getCache().evictAll();
+        revocationList.refresh();
+        flushCounter.increment();
+    }
+
+    void apply(Event event) {
+        // Outside a transaction the cache hooks below take effect immediately
+        switch (event.type()) {
+            case NOTES -> {
+                if (event.id() != null) {
+                    forgetBoard(event.id());
+                }
+                noteSearch.userChanged(event.userId());
+            }
+            case BOARD -> forgetBoard(event.id());
+            case BOARD_DELETED -> {
+                boardVersions.boardDeleted(event.id());
+                boardViews.boardDeleted(event.id());
+                spatialIndex.boardDeleted(event.id());
+                noteSearch.boardDeleted(event.userId(), event.id());
+                entityManagerFactory.getCache().evict(Board.class, event.id());
+            }
+            case USER_BOARDS_DELETED -> {
+                boardVersions.userBoardsDeleted(event.userId());
+                boardViews.userDeleted(event.userId());
+                noteSearch.userChanged(event.userId());
+                entityManagerFactory.getCache().evict(Board.class);
+            }
+            case USER -> {
+                userCache.evict(event.key());
+                if (event.userId() != null) {
+                    entityManagerFactory.getCache().evict(User.class, event.userId());
+                }
+            }
+            case TOKEN_REVOKED -> revocationList.revokedElsewhere(event.key(), event.id());
+            default -> System.out.println("Ignoring unknown invalidation event " + event.type());
+        }
+    }
+
+    private void forgetBoard(Long boardId) {
+        // Cached note lists and overviews are keyed by version, so reloading the version is enough for them
+        boardVersions.evict(boardId);
+        spatialIndex.boardRearranged(boardId);
+        entityManagerFactory.getCache().evict(Board.class, boardId);
+    }
+
+    private void publish(Event event) {
+        if (!enabled) {
+            return;
+        }
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", channel, event.encode());
+        publishedCounter.increment();
+    }
+
+    /**
+     * One invalidation, sent as "origin|type|userId|id|key"; the key comes last since an email may contain '|'
+     */
+    record Event(String origin, String type, Long userId, Long id, String key) {
+
+        String encode() {
+            return origin + '|' + type + '|' + (userId != null ? userId : "") + '|'
+                    + (id != null ? id : "") + '|' + (key != null ? key : "");
+        }
+
+        static Event decode(String payload) {
+            String[] parts = payload == null ? new String[0] : payload.split("\\|", 5);
+            if (parts.length != 5) {
+                return null;
+            }
+            try {
+                return new Event(parts[0], parts[1], parseId(parts[2]), parseId(parts[3]),
+                        parts[4].isEmpty() ? null : parts[4]);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private static Long parseId(String value) {
+            return value.isEmpty() ? null : Long.valueOf(value);
+        }
+    }
+}
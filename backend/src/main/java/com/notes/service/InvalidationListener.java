@@ -0,0 +1,177 @@
+package com.notes.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+/**
+ * Keeps one dedicated connection per node LISTENing on the invalidation channel and hands every
+ * notification to the InvalidationBus. The connection is not taken from the pool, since a pooled
+ * connection would stop listening as soon as it is returned. Notifications sent while the node is
+ * not listening are lost, so after every (re)connect all local caches are flushed before the next
+ * notification is applied.
+ */
+@Component
+public class InvalidationListener {
+
+    private static final String CHANNEL_PATTERN = "[a-z_][a-z0-9_]*";
+
+    @Value("${spring.datasource.url}")
+    private String url;
+
+    @Value("${spring.datasource.username}")
+    private String username;
+
+    @Value("${spring.datasource.password}")
+    private String password;
+
+    @Value("${notes.invalidation.poll-timeout-ms:500}")
+    private int pollTimeoutMs;
+
+    @Value("${notes.invalidation.keepalive-interval-ms:30000}")
+    private long keepaliveIntervalMs;
+
+    @Value("${notes.invalidation.reconnect-backoff-ms:1000}")
+    private long reconnectBackoffMs;
+
+    @Value("${notes.invalidation.max-reconnect-backoff-ms:30000}")
+    private long maxReconnectBackoffMs;
+
+    private final InvalidationBus bus;
+    private final Counter reconnectCounter;
+
+    private volatile boolean running;
+    private volatile boolean listening;
+    private Thread thread;
+
+    @Autowired
+    public InvalidationListener(InvalidationBus bus, MeterRegistry meterRegistry) {
+        this.bus = bus;
+        this.reconnectCounter = meterRegistry.counter("notes.invalidation.reconnects");
+        Gauge.builder("notes.invalidation.listening", this, listener -> listener.listening ? 1 : 0)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!bus.isEnabled()) {
+            return;
+        }
+        if (!bus.getChannel().matches(CHANNEL_PATTERN)) {
+            throw new IllegalStateException("Invalid notes.invalidation.channel: " + bus.getChannel());
+        }
+        running = true;
+        thread = new Thread(this::run, "invalidation-listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public boolean isListening() {
+        return listening;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (thread != null) {
+            thread.join(pollTimeoutMs + 1000L);
+        }
+    }
+
+    private void run() {
+        long backoff = reconnectBackoffMs;
+        boolean connectedBefore = false;
+        while (running) {
+            try (Connection connection = connect()) {
+                if (connectedBefore) {
+                    reconnectCounter.increment();
+                }
+                connectedBefore = true;
+                backoff = reconnectBackoffMs;
+                listen(connection);
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    break;
+                }
+                System.out.println("Invalidation listener lost its connection: " + e.getMessage()
+                        + ", reconnecting in " + backoff + " ms");
+            } finally {
+                listening = false;
+            }
+            if (running) {
+                sleep(backoff);
+                backoff = Math.min(backoff * 2, maxReconnectBackoffMs);
+            }
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("user", username);
+        properties.setProperty("password", password);
+        properties.setProperty("ApplicationName", "notes-invalidation");
+        properties.setProperty("tcpKeepAlive", "true");
+        return DriverManager.getConnection(url, properties);
+    }
+
+    private void listen(Connection connection) throws SQLException {
+        connection.setAutoCommit(true);
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("LISTEN " + bus.getChannel());
+        }
+        // Only now, with LISTEN in place, is nothing missed from here on
+        bus.flushAll();
+        listening = true;
+
+        long lastActivity = System.currentTimeMillis();
+        while (running) {
+            PGNotification[] notifications = pgConnection.getNotifications(pollTimeoutMs);
+            long now = System.currentTimeMillis();
+            if (notifications != null && notifications.length > 0) {
+                for (PGNotification notification : notifications) {
+                    receive(notification.getParameter());
+                }
+                lastActivity = now;
+            } else if (now - lastActivity >= keepaliveIntervalMs) {
+                // A silent channel cannot tell a quiet cluster from a half-open connection; ask the server
+                if (!connection.isValid(5)) {
+                    throw new SQLException("Listening connection is no longer valid");
+                }
+                lastActivity = now;
+            }
+        }
+    }
+
+    private void receive(String payload) {
+        try {
+            bus.receive(payload);
+        } catch (RuntimeException e) {
+            // One bad event must not stop the listener; drop everything instead of risking stale entries
+            System.out.println("Failed to apply invalidation " + payload + ": " + e.getMessage());
+            bus.flushAll();
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
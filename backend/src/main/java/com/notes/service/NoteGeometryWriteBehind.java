@@ -0,0 +1,251 @@
+package com.notes.service;
+
+import com.notes.dto.NoteGeometryRequest;
+import com.notes.repository.ChangeFeedRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Optional write-behind buffer for note geometry. Keeps only the latest position and size
+ * per note and writes them to the notes table in periodic JDBC batches, so a drag that
+ * produces many updates per second costs one row update per flush.
+ * Ownership is enforced when the batch is written (WHERE id = ? AND user_id = ?).
+ * A flush takes the users' row locks (nextChangeSeq) while holding flushLock, so a transaction
+ * must flush before it calls nextChangeSeq itself, never after.
+ */
+@Component
+public class NoteGeometryWriteBehind {
+
+    private static final String UPDATE_GEOMETRY =
+            "UPDATE notes SET " +
+            "position_x = COALESCE(?, position_x), " +
+            "position_y = COALESCE(?, position_y), " +
+            "width = COALESCE(?, width), " +
+            "height = COALESCE(?, height), " +
+            "change_seq = ?, " +
+            "updated_at = ? " +
+            "WHERE id = ? AND user_id = ?";
+
+    @Value("${notes.geometry.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${notes.geometry.write-behind.batch-size:500}")
+    private int batchSize;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ChangeFeedRepository changeFeed;
+    private final BoardVersions boardVersions;
+    private final InvalidationBus invalidationBus;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<PendingKey, PendingGeometry> pending = new ConcurrentHashMap<>();
+    // Flushes are serialized so an older batch can never overwrite a newer one
+    private final Object flushLock = new Object();
+    // True while a flush holds entries it has removed from pending but not yet written
+    private volatile boolean writing;
+
+    private final AtomicLong updatesReceived = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final Counter updatesCounter;
+    private final Counter rowsCounter;
+    private final Timer flushTimer;
+
+    @Autowired
+    public NoteGeometryWriteBehind(JdbcTemplate jdbcTemplate,
+                                   ChangeFeedRepository changeFeed,
+                                   BoardVersions boardVersions,
+                                   InvalidationBus invalidationBus,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.changeFeed = changeFeed;
+        this.boardVersions = boardVersions;
+        this.invalidationBus = invalidationBus;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.updatesCounter = meterRegistry.counter("notes.geometry.write_behind.updates");
+        this.rowsCounter = meterRegistry.counter("notes.geometry.write_behind.rows_written");
+        this.flushTimer = meterRegistry.timer("notes.geometry.write_behind.flush");
+        Gauge.builder("notes.geometry.write_behind.pending", pending, Map::size)
+                .register(meterRegistry);
+        Gauge.builder("notes.geometry.write_behind.coalescing_ratio", this, NoteGeometryWriteBehind::getCoalescingRatio)
+                .description("Geometry updates received per row written")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void enqueue(Long noteId, Long userId, NoteGeometryRequest geometry) {
+        PendingGeometry update = new PendingGeometry(
+                geometry.getPositionX(), geometry.getPositionY(),
+                geometry.getWidth(), geometry.getHeight());
+        pending.merge(new PendingKey(noteId, userId), update, PendingGeometry::overwrittenBy);
+        updatesReceived.incrementAndGet();
+        updatesCounter.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${notes.geometry.write-behind.flush-interval-ms:1000}")
+    public void flush() {
+        flushMatching(key -> true);
+    }
+
+    /**
+     * Write out pending geometry of one user, called before that user's notes are read
+     */
+    public void flushUser(Long userId) {
+        flushMatching(key -> key.userId().equals(userId));
+    }
+
+    /**
+     * Write out pending geometry of one note, called before the note is read, replaced or deleted
+     */
+    public void flushNote(Long noteId) {
+        flushMatching(key -> key.noteId().equals(noteId));
+    }
+
+    /**
+     * Write one geometry update right away, as its own change; used when write-behind is disabled.
+     * Returns the number of rows updated, 0 if the note does not exist or belongs to another user.
+     */
+    public int writeNow(Long noteId, Long userId, NoteGeometryRequest geometry) {
+        return transactionTemplate.execute(status -> {
+            int updated = jdbcTemplate.update(UPDATE_GEOMETRY,
+                    geometry.getPositionX(), geometry.getPositionY(), geometry.getWidth(), geometry.getHeight(),
+                    changeFeed.nextChangeSeq(userId), Timestamp.valueOf(LocalDateTime.now()), noteId, userId);
+            if (updated > 0) {
+                invalidationBus.boardsChanged(boardVersions.notesMoved(List.of(noteId)));
+            }
+            return updated;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public long getUpdatesReceived() {
+        return updatesReceived.get();
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten.get();
+    }
+
+    public double getCoalescingRatio() {
+        long written = rowsWritten.get();
+        return written == 0 ? 0.0 : (double) updatesReceived.get() / written;
+    }
+
+    private void flushMatching(Predicate<PendingKey> filter) {
+        // Checked in this order: a batch already taken out of pending sets writing first,
+        // so a caller that finds pending empty still waits for that batch to be written
+        if (pending.isEmpty() && !writing) {
+            return;
+        }
+        synchronized (flushLock) {
+            writing = true;
+            try {
+                Map<PendingKey, PendingGeometry> batch = new LinkedHashMap<>();
+                for (PendingKey key : pending.keySet()) {
+                    if (!filter.test(key)) {
+                        continue;
+                    }
+                    PendingGeometry geometry = pending.remove(key);
+                    if (geometry != null) {
+                        batch.put(key, geometry);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    try {
+                        flushTimer.record(() -> writeBatch(batch));
+                    } catch (RuntimeException e) {
+                        // Keep the moves for the next flush; fields of moves buffered meanwhile win
+                        batch.forEach((key, failed) -> pending.merge(key, failed,
+                                (newer, older) -> older.overwrittenBy(newer)));
+                        throw e;
+                    }
+                }
+            } finally {
+                writing = false;
+            }
+        }
+    }
+
+    private void writeBatch(Map<PendingKey, PendingGeometry> batch) {
+        int[] argTypes = {Types.DOUBLE, Types.DOUBLE, Types.DOUBLE, Types.DOUBLE,
+                Types.BIGINT, Types.TIMESTAMP, Types.BIGINT, Types.BIGINT};
+        transactionTemplate.executeWithoutResult(status -> {
+            // One change per user and flush; users are locked in id order so concurrent writers cannot deadlock
+            Map<Long, Long> changeSeqByUser = new TreeMap<>();
+            for (PendingKey key : batch.keySet()) {
+                changeSeqByUser.put(key.userId(), null);
+            }
+            changeSeqByUser.replaceAll((userId, seq) -> changeFeed.nextChangeSeq(userId));
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            
+            List<Object[]> rows = new ArrayList<>(batch.size());
+            batch.forEach((key, geometry) -> rows.add(new Object[] {
+                    geometry.positionX(), geometry.positionY(), geometry.width(), geometry.height(),
+                    changeSeqByUser.get(key.userId()), now, key.noteId(), key.userId()
+            }));
+            List<PendingKey> keys = new ArrayList<>(batch.keySet());
+            Set<Long> movedNoteIds = new HashSet<>();
+            for (int from = 0; from < rows.size(); from += batchSize) {
+                int to = Math.min(from + batchSize, rows.size());
+                int[] counts = jdbcTemplate.batchUpdate(UPDATE_GEOMETRY, rows.subList(from, to), argTypes);
+                // Rows of notes the requester does not own match nothing and must not touch the owner's boards;
+                // a driver that reports SUCCESS_NO_INFO (-2) is taken at its word
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] != 0) {
+                        movedNoteIds.add(keys.get(from + i).noteId());
+                    }
+                }
+            }
+            // Buffered moves become visible to board version checks only now, together with the rows
+            invalidationBus.boardsChanged(boardVersions.notesMoved(movedNoteIds));
+        });
+        rowsWritten.addAndGet(batch.size());
+        rowsCounter.increment(batch.size());
+    }
+
+    // Keyed by requesting user as well, so a request for someone else's note never replaces the owner's update
+    private record PendingKey(Long noteId, Long userId) {
+    }
+
+    private record PendingGeometry(Double positionX, Double positionY, Double width, Double height) {
+
+        // Newer values win; fields the newer update leaves out keep the buffered value
+        PendingGeometry overwrittenBy(PendingGeometry newer) {
+            return new PendingGeometry(
+                    newer.positionX != null ? newer.positionX : positionX,
+                    newer.positionY != null ? newer.positionY : positionY,
+                    newer.width != null ? newer.width : width,
+                    newer.height != null ? newer.height : height);
+        }
+    }
+}
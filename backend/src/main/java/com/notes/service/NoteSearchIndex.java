@@ -0,0 +1,378 @@
+package com.notes.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Inverted index over the notes of one user. Words of the title, tags and content are lower-cased
+ * and weighted by field; a note's weight for a term is the sum over the fields containing it.
+ * Terms are kept sorted, so a query word also matches the terms it is a prefix of (exact matches
+ * score double). Every query word must match. Notes are numbered with dense slots and posting
+ * lists are sorted primitive arrays of slots, so a query touches no boxed values.
+ */
+public class NoteSearchIndex {
+    
+    static final int TITLE_WEIGHT = 4;
+    static final int TAG_WEIGHT = 2;
+    static final int CONTENT_WEIGHT = 1;
+    private static final int MAX_TERM_LENGTH = 64;
+    
+    private final int minPrefixLength;
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final Map<Long, Integer> slotByNote = new HashMap<>();
+    private long[] noteIds = new long[16];
+    private long[] boardIds = new long[16];
+    private String[][] noteTerms = new String[16][];
+    private int[][] noteWeights = new int[16][];
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int slotCount;
+    
+    // Per-query scores, valid only where scoreStamp matches the current query
+    private int[] scores = new int[16];
+    private int[] scoreStamp = new int[16];
+    private int[] matchedWords = new int[16];
+    private int queryStamp;
+    
+    private volatile long lastAccessMillis = System.currentTimeMillis();
+    
+    /**
+     * @param minPrefixLength query words shorter than this only match whole terms
+     */
+    public NoteSearchIndex(int minPrefixLength) {
+        this.minPrefixLength = minPrefixLength;
+    }
+    
+    /**
+     * Index a note, replacing whatever was indexed for it before
+     */
+    public synchronized void put(long noteId, long boardId, String title, String content, Collection<String> tags) {
+        remove(noteId);
+        
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        addField(weights, title, TITLE_WEIGHT);
+        if (tags != null) {
+            for (String tag : tags) {
+                addField(weights, tag, TAG_WEIGHT);
+            }
+        }
+        addField(weights, content, CONTENT_WEIGHT);
+        
+        int slot = allocateSlot();
+        noteIds[slot] = noteId;
+        boardIds[slot] = boardId;
+        String[] slotTerms = new String[weights.size()];
+        int[] slotWeights = new int[weights.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            Postings postings = terms.computeIfAbsent(entry.getKey(), Postings::new);
+            // Share one String instance per term between the term map and every note's term list
+            slotTerms[i] = postings.term;
+            slotWeights[i] = entry.getValue();
+            postings.add(slot, entry.getValue());
+            i++;
+        }
+        noteTerms[slot] = slotTerms;
+        noteWeights[slot] = slotWeights;
+        slotByNote.put(noteId, slot);
+    }
+    
+    public synchronized boolean remove(long noteId) {
+        Integer removed = slotByNote.remove(noteId);
+        if (removed == null) {
+            return false;
+        }
+        freeSlot(removed);
+        return true;
+    }
+    
+    public synchronized void removeBoard(long boardId) {
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (noteTerms[slot] != null && boardIds[slot] == boardId) {
+                slotByNote.remove(noteIds[slot]);
+                freeSlot(slot);
+            }
+        }
+    }
+    
+    /**
+     * Ids of the best matching notes, best first; ties go to the newer (higher) id.
+     * boardId restricts the search to one board when not null.
+     */
+    public synchronized long[] search(String query, Long boardId, int limit) {
+        List<String> words = tokenize(query).stream().distinct().toList();
+        if (words.isEmpty() || limit <= 0) {
+            return new long[0];
+        }
+        
+        // Walk the words from the fewest postings up; later words can only confirm earlier candidates
+        List<WordMatch> matches = new ArrayList<>(words.size());
+        for (String word : words) {
+            matches.add(WordMatch.of(word, matchingTerms(word)));
+        }
+        matches.sort(Comparator.comparingLong(WordMatch::postingCount));
+        if (matches.get(0).postingCount() == 0) {
+            return new long[0];
+        }
+        
+        int stamp = nextStamp();
+        int[] candidates = new int[16];
+        int candidateCount = 0;
+        for (int w = 0; w < matches.size(); w++) {
+            WordMatch match = matches.get(w);
+            boolean advanced = false;
+            for (Map.Entry<String, Postings> entry : match.terms().entrySet()) {
+                int factor = entry.getKey().equals(match.word()) ? 2 : 1;
+                Postings postings = entry.getValue();
+                for (int i = 0; i < postings.size; i++) {
+                    int slot = postings.slots[i];
+                    if (w == 0) {
+                        if (boardId != null && boardIds[slot] != boardId) {
+                            continue;
+                        }
+                        if (scoreStamp[slot] != stamp) {
+                            scoreStamp[slot] = stamp;
+                            scores[slot] = 0;
+                            matchedWords[slot] = 1;
+                            if (candidateCount == candidates.length) {
+                                candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                            }
+                            candidates[candidateCount++] = slot;
+                        }
+                    } else if (scoreStamp[slot] != stamp || matchedWords[slot] < w) {
+                        continue;
+                    } else if (matchedWords[slot] == w) {
+                        matchedWords[slot] = w + 1;
+                    }
+                    scores[slot] += postings.weights[i] * factor;
+                    advanced = true;
+                }
+            }
+            if (!advanced) {
+                return new long[0];
+            }
+        }
+        
+        return best(candidates, candidateCount, matches.size(), limit);
+    }
+    
+    public synchronized int size() {
+        return slotByNote.size();
+    }
+    
+    public long getLastAccessMillis() {
+        return lastAccessMillis;
+    }
+    
+    void touch() {
+        lastAccessMillis = System.currentTimeMillis();
+    }
+    
+    /**
+     * Lower-cased runs of letters and digits, each cut to 64 characters
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String token = text.substring(start, Math.min(i, start + MAX_TERM_LENGTH));
+                tokens.add(token.toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+    
+    // Top `limit` slots matching every word, using a primitive min-heap ordered by (score, note id)
+    private long[] best(int[] candidates, int candidateCount, int wordCount, int limit) {
+        int[] heap = new int[Math.min(limit, candidateCount)];
+        int heapSize = 0;
+        for (int c = 0; c < candidateCount; c++) {
+            int slot = candidates[c];
+            if (matchedWords[slot] != wordCount) {
+                continue;
+            }
+            if (heapSize < heap.length) {
+                heap[heapSize] = slot;
+                siftUp(heap, heapSize++);
+            } else if (heap.length > 0 && ranksAbove(slot, heap[0])) {
+                heap[0] = slot;
+                siftDown(heap, heapSize);
+            }
+        }
+        long[] result = new long[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            result[i] = noteIds[heap[0]];
+            heap[0] = heap[i];
+            siftDown(heap, i);
+        }
+        return result;
+    }
+    
+    private boolean ranksAbove(int slot, int other) {
+        return scores[slot] != scores[other] ? scores[slot] > scores[other] : noteIds[slot] > noteIds[other];
+    }
+    
+    private void siftUp(int[] heap, int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!ranksAbove(heap[parent], heap[index])) {
+                return;
+            }
+            swap(heap, parent, index);
+            index = parent;
+        }
+    }
+    
+    private void siftDown(int[] heap, int size) {
+        int index = 0;
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && ranksAbove(heap[smallest], heap[left])) {
+                smallest = left;
+            }
+            if (right < size && ranksAbove(heap[smallest], heap[right])) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(heap, index, smallest);
+            index = smallest;
+        }
+    }
+    
+    private static void swap(int[] heap, int a, int b) {
+        int tmp = heap[a];
+        heap[a] = heap[b];
+        heap[b] = tmp;
+    }
+    
+    private NavigableMap<String, Postings> matchingTerms(String word) {
+        if (word.length() < minPrefixLength) {
+            return terms.subMap(word, true, word, true);
+        }
+        return terms.subMap(word, true, word + Character.MAX_VALUE, false);
+    }
+    
+    private static void addField(Map<String, Integer> weights, String text, int weight) {
+        // A word counts once per field, however often it repeats there
+        for (String token : new LinkedHashSet<>(tokenize(text))) {
+            weights.merge(token, weight, Integer::sum);
+        }
+    }
+    
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        int slot = slotCount++;
+        if (slot == noteIds.length) {
+            int grown = noteIds.length * 2;
+            noteIds = Arrays.copyOf(noteIds, grown);
+            boardIds = Arrays.copyOf(boardIds, grown);
+            noteTerms = Arrays.copyOf(noteTerms, grown);
+            noteWeights = Arrays.copyOf(noteWeights, grown);
+            scores = Arrays.copyOf(scores, grown);
+            scoreStamp = Arrays.copyOf(scoreStamp, grown);
+            matchedWords = Arrays.copyOf(matchedWords, grown);
+        }
+        return slot;
+    }
+    
+    private void freeSlot(int slot) {
+        for (String term : noteTerms[slot]) {
+            Postings postings = terms.get(term);
+            if (postings != null && postings.remove(slot) && postings.size == 0) {
+                terms.remove(term);
+            }
+        }
+        noteTerms[slot] = null;
+        noteWeights[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+    
+    private int nextStamp() {
+        if (++queryStamp == Integer.MAX_VALUE) {
+            Arrays.fill(scoreStamp, 0);
+            queryStamp = 1;
+        }
+        return queryStamp;
+    }
+    
+    private record WordMatch(String word, NavigableMap<String, Postings> terms, long postingCount) {
+        
+        static WordMatch of(String word, NavigableMap<String, Postings> terms) {
+            long count = 0;
+            for (Postings postings : terms.values()) {
+                count += postings.size;
+            }
+            return new WordMatch(word, terms, count);
+        }
+    }
+    
+    /**
+     * Slots containing one term, sorted ascending, with the note's weight for the term
+     */
+    private static final class Postings {
+        private final String term;
+        private int[] slots = new int[4];
+        private int[] weights = new int[4];
+        private int size;
+        
+        Postings(String term) {
+            this.term = term;
+        }
+        
+        void add(int slot, int weight) {
+            int index = Arrays.binarySearch(slots, 0, size, slot);
+            if (index >= 0) {
+                weights[index] = weight;
+                return;
+            }
+            index = -index - 1;
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            System.arraycopy(slots, index, slots, index + 1, size - index);
+            System.arraycopy(weights, index, weights, index + 1, size - index);
+            slots[index] = slot;
+            weights[index] = weight;
+            size++;
+        }
+        
+        boolean remove(int slot) {
+            int index = Arrays.binarySearch(slots, 0, size, slot);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(slots, index + 1, slots, index, size - index - 1);
+            System.arraycopy(weights, index + 1, weights, index, size - index - 1);
+            size--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.notes.service;
+
+import com.notes.dto.NoteView;
+import com.notes.entity.Note;
+import com.notes.entity.User;
+import com.notes.repository.NoteViewRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-text search over the user's notes. Each user's {@link NoteSearchIndex} is built from the
+ * notes table on the user's first search, kept up to date by NoteService as notes are created,
+ * updated and deleted, and dropped once the user has not searched for notes.search.idle-minutes.
+ */
+@Service
+public class NoteSearchService {
+    
+    @Value("${notes.search.min-prefix-length:2}")
+    private int minPrefixLength;
+    
+    @Value("${notes.search.idle-minutes:30}")
+    private long idleMinutes;
+    
+    @Value("${notes.search.max-users:500}")
+    private int maxUsers;
+    
+    private final NoteViewRepository noteViewRepository;
+    private final DemoSandboxStore demoSandboxes;
+    private final Map<Long, NoteSearchIndex> indexes = new ConcurrentHashMap<>();
+    private final Timer searchTimer;
+    private final Counter buildCounter;
+    
+    @Autowired
+    public NoteSearchService(NoteViewRepository noteViewRepository,
+                             DemoSandboxStore demoSandboxes,
+                             MeterRegistry meterRegistry) {
+        this.noteViewRepository = noteViewRepository;
+        this.demoSandboxes = demoSandboxes;
+        this.searchTimer = meterRegistry.timer("notes.search.index_lookup");
+        this.buildCounter = meterRegistry.counter("notes.search.index_builds");
+        Gauge.builder("notes.search.indexes", indexes, Map::size)
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Notes of the user matching every word of the query, best match first,
+     * optionally restricted to one board
+     */
+    public List<NoteView> search(User user, String query, Long boardId, int limit) {
+        DemoSandbox sandbox = demoSandboxes.get(user);
+        if (sandbox != null) {
+            return sandbox.update(() -> {
+                // A sandbox holds a handful of notes, so a throwaway index is cheaper than keeping one
+                NoteSearchIndex index = new NoteSearchIndex(minPrefixLength);
+                Map<Long, NoteView> views = new HashMap<>();
+                for (Note note : sandbox.getNotes()) {
+                    index.put(note.getId(), note.getBoardId(), note.getTitle(), note.getContent(), note.getTags());
+                    views.put(note.getId(), NoteView.of(note));
+                }
+                List<NoteView> result = new ArrayList<>();
+                for (long id : index.search(query, boardId, limit)) {
+                    result.add(views.get(id));
+                }
+                return result;
+            });
+        }
+        
+        NoteSearchIndex index = indexFor(user.getId());
+        long start = System.nanoTime();
+        long[] ids = index.search(query, boardId, limit);
+        searchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (ids.length == 0) {
+            return List.of();
+        }
+        
+        Map<Long, Integer> rank = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            rank.put(ids[i], i);
+        }
+        // A note deleted after the lookup simply drops out of the result
+        List<NoteView> views = new ArrayList<>(noteViewRepository.findByIdsAndUser(ids, user.getId()));
+        views.sort(Comparator.comparingInt(view -> rank.get(view.id())));
+        return views;
+    }
+    
+    public void noteSaved(Note note) {
+        Long userId = note.getUser() != null ? note.getUser().getId() : null;
+        if (userId == null || note.getBoardId() == null) {
+            return;
+        }
+        long id = note.getId();
+        long boardId = note.getBoardId();
+        String title = note.getTitle();
+        String content = note.getContent();
+        List<String> tags = List.copyOf(note.getTags());
+        TransactionCallbacks.afterCommit(() -> indexes.computeIfPresent(userId, (key, index) -> {
+            index.put(id, boardId, title, content, tags);
+            return index;
+        }));
+    }
+    
+    public void noteDeleted(Long userId, Long noteId) {
+        TransactionCallbacks.afterCommit(() -> indexes.computeIfPresent(userId, (key, index) -> {
+            index.remove(noteId);
+            return index;
+        }));
+    }
+    
+    public void boardDeleted(Long userId, Long boardId) {
+        TransactionCallbacks.afterCommit(() -> indexes.computeIfPresent(userId, (key, index) -> {
+            index.removeBoard(boardId);
+            return index;
+        }));
+    }
+    
+    /**
+     * Drop the user's index after notes were written outside NoteService; the next search rebuilds it
+     */
+    public void userChanged(Long userId) {
+        TransactionCallbacks.afterCommit(() -> indexes.remove(userId));
+    }
+    
+    public void clear() {
+        indexes.clear();
+    }
+    
+    @Scheduled(fixedDelayString = "${notes.search.eviction-interval-ms:60000}")
+    public void evictCold() {
+        long cutoff = System.currentTimeMillis() - idleMinutes * 60_000L;
+        indexes.values().removeIf(index -> index.getLastAccessMillis() < cutoff);
+    }
+    
+    private NoteSearchIndex indexFor(Long userId) {
+        NoteSearchIndex index = indexes.get(userId);
+        if (index == null) {
+            if (indexes.size() >= maxUsers) {
+                evictLeastRecentlyUsed();
+            }
+            // Changes committed while the index is built wait on the map bin and are applied right after
+            index = indexes.computeIfAbsent(userId, this::build);
+        }
+        index.touch();
+        return index;
+    }
+    
+    private NoteSearchIndex build(Long userId) {
+        NoteSearchIndex index = new NoteSearchIndex(minPrefixLength);
+        noteViewRepository.forEachSearchDocument(userId, index::put);
+        buildCounter.increment();
+        return index;
+    }
+    
+    private void evictLeastRecentlyUsed() {
+        indexes.entrySet().stream()
+                .min(Comparator.comparingLong(entry -> entry.getValue().getLastAccessMillis()))
+                .ifPresent(entry -> indexes.remove(entry.getKey()));
+    }
+}
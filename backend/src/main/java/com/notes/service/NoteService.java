@@ -1,16 +1,28 @@
 package com.notes.service;
 
+import com.notes.dto.NoteCursor;
+import com.notes.dto.NoteGeometryRequest;
+import com.notes.dto.NotePage;
+import com.notes.dto.NoteSort;
+import com.notes.dto.NoteView;
 import com.notes.entity.Board;
 import com.notes.entity.Note;
 import com.notes.entity.User;
+import com.notes.repository.ChangeFeedRepository;
 import com.notes.repository.NoteRepository;
+import com.notes.repository.NoteViewRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 
 
@@ -18,10 +30,37 @@ import java.util.stream.Collectors;
 public class NoteService {
     
     private final NoteRepository noteRepository;
+    private final NoteViewRepository noteViewRepository;
+    private final NoteGeometryWriteBehind geometryWriteBehind;
+    private final DemoSandboxStore demoSandboxes;
+    private final NoteSpatialIndexCache spatialIndex;
+    private final BoardVersions boardVersions;
+    private final NoteSearchService noteSearch;
+    private final ChangeFeedRepository changeFeed;
+    private final BoardViewCache boardViews;
+    private final InvalidationBus invalidationBus;
     
     @Autowired
-    public NoteService(NoteRepository noteRepository) {
+    public NoteService(NoteRepository noteRepository,
+                       NoteViewRepository noteViewRepository,
+                       NoteGeometryWriteBehind geometryWriteBehind,
+                       DemoSandboxStore demoSandboxes,
+                       NoteSpatialIndexCache spatialIndex,
+                       BoardVersions boardVersions,
+                       NoteSearchService noteSearch,
+                       ChangeFeedRepository changeFeed,
+                       BoardViewCache boardViews,
+                       InvalidationBus invalidationBus) {
         this.noteRepository = noteRepository;
+        this.noteViewRepository = noteViewRepository;
+        this.geometryWriteBehind = geometryWriteBehind;
+        this.demoSandboxes = demoSandboxes;
+        this.spatialIndex = spatialIndex;
+        this.boardVersions = boardVersions;
+        this.noteSearch = noteSearch;
+        this.changeFeed = changeFeed;
+        this.boardViews = boardViews;
+        this.invalidationBus = invalidationBus;
     }
     
     public List<Note> getAllNotes() {
@@ -29,25 +68,128 @@ public class NoteService {
     }
     
     public List<Note> getAllNotesByUser(User user) {
+        DemoSandbox sandbox = demoSandboxes.get(user);
+        if (sandbox != null) {
+            return sandbox.getNotes();
+        }
+        flushPendingGeometry(user);
         return noteRepository.findByUser(user);
     }
     
+    /**
+     * Notes of the board intersecting the viewport, served from the board's spatial index
+     */
+    public List<NoteView> getNoteViewsInViewport(Board board, User user,
+                                                 double minX, double minY, double maxX, double maxY) {
+        DemoSandbox sandbox = demoSandboxes.get(user);
+        if (sandbox != null) {
+            return sandbox.update(() -> sandbox.getNotesInViewport(board.getId(), minX, minY, maxX, maxY).stream()
+                    .map(NoteView::of)
+                    .toList());
+        }
+        flushPendingGeometry(user);
+        long[] ids = spatialIndex.query(board.getId(), user.getId(), minX, minY, maxX, maxY);
+        if (ids.length == 0) {
+            return List.of();
+        }
+        return noteViewRepository.findByIdsAndUser(ids, user.getId());
+    }
+    
+    /**
+     * One page of the user's notes in keyset order; fetches one extra row to know whether another page follows
+     */
+    public NotePage getNotePage(User user, NoteSort sort, boolean descending, NoteCursor after, int limit) {
+        List<NoteView> rows;
+        DemoSandbox sandbox = demoSandboxes.get(user);
+        if (sandbox != null) {
+            rows = sandbox.update(() -> pageOf(sandbox.getNotes(), sort, descending, after, limit + 1));
+        } else {
+            flushPendingGeometry(user);
+            rows = noteViewRepository.findPageByUser(user.getId(), sort, descending, after, limit + 1);
+        }
+        
+        if (rows.size() <= limit) {
+            return new NotePage(rows, null);
+        }
+        List<NoteView> items = rows.subList(0, limit);
+        return new NotePage(List.copyOf(items), NoteCursor.after(items.get(limit - 1), sort, descending).encode());
+    }
+    
     public List<Note> getAllNotesByBoardAndUser(Board board, User user) {
+        DemoSandbox sandbox = demoSandboxes.get(user);
+        if (sandbox != null) {
+            return sandbox.getNotes(board.getId());
+        }
+        flushPendingGeometry(user);
         return noteRepository.findByBoardAndUser(board, user);
     }
+    
+    /**
+     * Board notes with their tags, as read-only views. Served from the board view cache while
+     * the board is unchanged, otherwise read in a single query and cached.
+     */
+    public List<NoteView> getNoteViewsByBoardAndUser(Board board, User user) {
+        DemoSandbox sandbox = demoSandboxes.get(user);
+        if (sandbox != null) {
+            return sandbox.update(() -> sandbox.getNotes(board.getId()).stream().map(NoteView::of).toList());
+        }
+        flushPendingGeometry(user);
+        List<NoteView> cached = boardViews.get(board.getId(), user.getId());
+        if (cached != null) {
+            return cached;
+        }
+        // Read the version before the notes: a change committed meanwhile leaves the snapshot behind and it is reloaded
+        long version = boardVersions.current(board.getId());
+        return boardViews.put(board.getId(), user.getId(), version,
+                noteViewRepository.findByBoardAndUser(board.getId(), user.getId()));
+    }
 
 
     
     public Optional<Note> getNoteById(Long id) {
+        if (geometryWriteBehind.isEnabled()) {
+            geometryWriteBehind.flushNote(id);
+        }
         return noteRepository.findById(id);
     }
     
+    public Optional<Note> getNoteById(Long id, User user) {
+        DemoSandbox sandbox = demoSandboxes.get(user);
+        if (sandbox != null) {
+            return sandbox.getNote(id);
+        }
+        return getNoteById(id)
+                .filter(note -> note.getUser().getId().equals(user.getId()));
+    }
+    
+    @Transactional
     public Note createNote(Note note) {
-        return noteRepository.save(note);
+        DemoSandbox sandbox = demoSandboxes.get(note.getUser());
+        if (sandbox != null) {
+            return sandbox.addNote(note);
+        }
+        // Taken for its lock: the insert's change_seq default is drawn while this user's writes are serialized
+        changeFeed.nextChangeSeq(note.getUser().getId());
+        Note saved = noteRepository.save(note);
+        spatialIndex.noteSaved(saved);
+        boardViews.noteSaved(NoteView.of(saved), boardVersions.boardChanged(saved.getBoardId()));
+        noteSearch.noteSaved(saved);
+        invalidationBus.notesChanged(saved.getUser().getId(), saved.getBoardId());
+        return saved;
     }
     
     @Transactional
     public Note updateNote(Long id, Note noteDetails, User user) {
+        DemoSandbox sandbox = demoSandboxes.get(user);
+        if (sandbox != null) {
+            return sandbox.updateNote(id, noteDetails);
+        }
+        // Buffered moves are older than this full update, so write them first; this also has to come before
+        // nextChangeSeq, since a flush takes the user's row lock while holding the write-behind flush lock.
+        // The change seq itself is only taken once the note is known to be the user's
+        if (geometryWriteBehind.isEnabled()) {
+            geometryWriteBehind.flushNote(id);
+        }
         Optional<Note> optionalNote = noteRepository.findById(id);
         if (optionalNote.isPresent()) {
             Note note = optionalNote.get();
@@ -55,6 +197,7 @@ public class NoteService {
             if (!note.getUser().getId().equals(user.getId())) {
                 return null; // Not authorized to update this note
             }
+            long changeSeq = changeFeed.nextChangeSeq(user.getId());
             note.setTitle(noteDetails.getTitle());
             note.setContent(noteDetails.getContent());
             note.setPositionX(noteDetails.getPositionX());
@@ -62,31 +205,139 @@ public class NoteService {
             note.setWidth(noteDetails.getWidth());
             note.setHeight(noteDetails.getHeight());
             note.setColor(noteDetails.getColor());
-            // Properly handle tags to avoid duplicate key violations
-            // First delete existing tags from database
-            noteRepository.deleteTagsByNoteId(id);
-            // Flush to ensure delete is committed
-            noteRepository.flush();
-            // Then clear the in-memory list and add new tags
-            note.getTags().clear();
-            if (noteDetails.getTags() != null) {
-                note.getTags().addAll(noteDetails.getTags());
-            }
+            note.setUpdatedAt(LocalDateTime.now());
+            note.setChangeSeq(changeSeq);
+            // Apply only the tag difference, so Hibernate deletes removed rows and inserts added ones
+            // and an unchanged tag list produces no note_tags statements at all
+            Set<String> requestedTags = noteDetails.getTags() != null ? noteDetails.getTags() : Set.of();
+            note.getTags().retainAll(requestedTags);
+            note.getTags().addAll(requestedTags);
 
-            return noteRepository.save(note);
+            Note saved = noteRepository.save(note);
+            spatialIndex.noteSaved(saved);
+            boardViews.noteSaved(NoteView.of(saved), boardVersions.boardChanged(saved.getBoardId()));
+            noteSearch.noteSaved(saved);
+            invalidationBus.notesChanged(user.getId(), saved.getBoardId());
+            return saved;
         }
         return null;
     }
 
     
+    /**
+     * Move or resize a note with a single UPDATE; returns false if the note
+     * does not exist or belongs to another user
+     */
+    public boolean updateNoteGeometry(Long id, NoteGeometryRequest geometry, User user) {
+        DemoSandbox sandbox = demoSandboxes.get(user);
+        if (sandbox != null) {
+            return sandbox.updateGeometry(id, geometry);
+        }
+        if (geometryWriteBehind.isEnabled()) {
+            // Checked up front so foreign or missing notes are neither acknowledged nor buffered
+            if (!noteRepository.existsByIdAndUserId(id, user.getId())) {
+                return false;
+            }
+            geometryWriteBehind.enqueue(id, user.getId(), geometry);
+            spatialIndex.geometryChanged(id, user.getId(), geometry);
+            return true;
+        }
+        int updated = geometryWriteBehind.writeNow(id, user.getId(), geometry);
+        if (updated > 0) {
+            spatialIndex.geometryChanged(id, user.getId(), geometry);
+        }
+        return updated > 0;
+    }
+    
+    /**
+     * Top-left corner of the free spot nearest to the anchor for a new note of the given size
+     */
+    public double[] findFreeSpot(Board board, User user, double anchorX, double anchorY, double width, double height) {
+        DemoSandbox sandbox = demoSandboxes.get(user);
+        if (sandbox != null) {
+            return sandbox.update(() -> spatialIndex.findFreeSpot(sandbox.getNotes(board.getId()),
+                    anchorX, anchorY, width, height));
+        }
+        // Buffered moves must be in the database before the index may be rebuilt from it
+        flushPendingGeometry(user);
+        return spatialIndex.findFreeSpot(board.getId(), user.getId(), anchorX, anchorY, width, height);
+    }
+    
+    /**
+     * Lay out every note of the board in rows without overlaps, keeping their reading order,
+     * and write all positions in one statement. Returns the notes at their new positions.
+     */
+    @Transactional
+    public List<NoteView> tidyUpBoard(Board board, User user) {
+        DemoSandbox sandbox = demoSandboxes.get(user);
+        if (sandbox != null) {
+            return sandbox.update(() -> {
+                List<Note> notes = sandbox.getNotes(board.getId());
+                List<NoteView> views = notes.stream().map(NoteView::of).toList();
+                List<NoteView> tidied = tidy(views);
+                for (int i = 0; i < notes.size(); i++) {
+                    notes.get(i).setPositionX(tidied.get(i).positionX());
+                    notes.get(i).setPositionY(tidied.get(i).positionY());
+                }
+                return tidied;
+            });
+        }
+        // Flushed before the change seq is taken, in the same lock order as the scheduled flush
+        flushPendingGeometry(user);
+        long changeSeq = changeFeed.nextChangeSeq(user.getId());
+        List<NoteView> tidied = tidy(noteViewRepository.findByBoardAndUser(board.getId(), user.getId()));
+        if (tidied.isEmpty()) {
+            return tidied;
+        }
+        int n = tidied.size();
+        long[] ids = new long[n];
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = tidied.get(i).id();
+            x[i] = tidied.get(i).positionX();
+            y[i] = tidied.get(i).positionY();
+        }
+        noteViewRepository.updatePositions(ids, x, y, user.getId(), changeSeq);
+        spatialIndex.boardRearranged(board.getId());
+        boardVersions.boardChanged(board.getId());
+        invalidationBus.boardChanged(board.getId());
+        return tidied;
+    }
+    
+    /**
+     * True when geometry updates are buffered and written asynchronously
+     */
+    public boolean isGeometryWriteBehindEnabled() {
+        return geometryWriteBehind.isEnabled();
+    }
+    
     public List<Note> getNotesByTag(String tag) {
         return noteRepository.findByTagsContaining(tag);
     }
     
     public List<Note> getNotesByTag(String tag, User user) {
-        return noteRepository.findByTagsContaining(tag).stream()
-                .filter(note -> note.getUser().getId().equals(user.getId()))
-                .collect(Collectors.toList());
+        return getNotesByTags(List.of(tag), false, null, user);
+    }
+    
+    /**
+     * Notes of the user matching the given tags, either any of them or all of them,
+     * optionally restricted to a single board
+     */
+    public List<Note> getNotesByTags(Collection<String> tags, boolean matchAll, Long boardId, User user) {
+        Set<String> distinctTags = new LinkedHashSet<>(tags);
+        if (distinctTags.isEmpty()) {
+            return new ArrayList<>();
+        }
+        DemoSandbox sandbox = demoSandboxes.get(user);
+        if (sandbox != null) {
+            return sandbox.getNotesByTags(distinctTags, matchAll, boardId);
+        }
+        flushPendingGeometry(user);
+        if (matchAll) {
+            return noteRepository.findByUserAndAllTags(user.getId(), boardId, distinctTags, distinctTags.size());
+        }
+        return noteRepository.findByUserAndAnyTag(user.getId(), boardId, distinctTags);
     }
 
 
@@ -99,7 +350,12 @@ public class NoteService {
         return false;
     }
     
+    @Transactional
     public boolean deleteNote(Long id, User user) {
+        DemoSandbox sandbox = demoSandboxes.get(user);
+        if (sandbox != null) {
+            return sandbox.removeNote(id);
+        }
         Optional<Note> optionalNote = noteRepository.findById(id);
         if (optionalNote.isPresent()) {
             Note note = optionalNote.get();
@@ -107,10 +363,68 @@ public class NoteService {
             if (!note.getUser().getId().equals(user.getId())) {
                 return false; // Not authorized to delete this note
             }
+            changeFeed.nextChangeSeq(user.getId());
             noteRepository.deleteById(id);
+            changeFeed.recordNoteDeleted(user.getId(), id, note.getBoardId());
+            spatialIndex.noteDeleted(id);
+            boardViews.noteDeleted(id, note.getBoardId(), boardVersions.boardChanged(note.getBoardId()));
+            noteSearch.noteDeleted(user.getId(), id);
+            invalidationBus.notesChanged(user.getId(), note.getBoardId());
             return true;
         }
         return false;
     }
-
+    
+    private List<NoteView> tidy(List<NoteView> views) {
+        int n = views.size();
+        double[] x = new double[n];
+        double[] y = new double[n];
+        double[] width = new double[n];
+        double[] height = new double[n];
+        for (int i = 0; i < n; i++) {
+            NoteView view = views.get(i);
+            x[i] = view.positionX();
+            y[i] = view.positionY();
+            width[i] = view.width();
+            height[i] = view.height();
+        }
+        BoardLayout.tidy(x, y, width, height, spatialIndex.getPlacementGap());
+        List<NoteView> tidied = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            NoteView view = views.get(i);
+            tidied.add(new NoteView(view.id(), view.title(), view.content(), x[i], y[i], view.width(), view.height(),
+                    view.color(), view.createdAt(), view.tags(), view.boardId()));
+        }
+        return tidied;
+    }
+    
+    private static List<NoteView> pageOf(List<Note> notes, NoteSort sort, boolean descending, NoteCursor after, int limit) {
+        Comparator<NoteView> order = sort == NoteSort.TITLE
+                ? Comparator.comparing(NoteView::title).thenComparing(NoteView::id)
+                : Comparator.comparing(NoteView::createdAt).thenComparing(NoteView::id);
+        if (descending) {
+            order = order.reversed();
+        }
+        Comparator<NoteView> finalOrder = order;
+        NoteView afterView = after == null ? null : cursorView(after);
+        return notes.stream()
+                .map(NoteView::of)
+                .filter(view -> afterView == null || finalOrder.compare(view, afterView) > 0)
+                .sorted(finalOrder)
+                .limit(limit)
+                .toList();
+    }
+    
+    // Placeholder view carrying only the cursor's sort key and id, for comparisons
+    private static NoteView cursorView(NoteCursor cursor) {
+        boolean byTitle = cursor.sort() == NoteSort.TITLE;
+        return new NoteView(cursor.id(), byTitle ? cursor.value() : "", null, 0, 0, 0, 0, null,
+                byTitle ? LocalDateTime.MIN : LocalDateTime.parse(cursor.value()), List.of(), null);
+    }
+    
+    void flushPendingGeometry(User user) {
+        if (geometryWriteBehind.isEnabled()) {
+            geometryWriteBehind.flushUser(user.getId());
+        }
+    }
 }
@@ -0,0 +1,171 @@
+package com.notes.service;
+
+import com.notes.dto.NoteGeometryRequest;
+import com.notes.entity.Note;
+import com.notes.repository.NoteViewRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Spatial indexes of recently viewed boards. An index is built from the notes table on the
+ * first viewport query of a board, kept up to date as notes are created, moved and deleted,
+ * and dropped once the board has not been queried for notes.spatial-index.idle-minutes.
+ */
+@Component
+public class NoteSpatialIndexCache {
+    
+    @Value("${notes.spatial-index.cell-size:1024}")
+    private double cellSize;
+    
+    @Value("${notes.spatial-index.idle-minutes:15}")
+    private long idleMinutes;
+    
+    @Value("${notes.spatial-index.max-boards:1000}")
+    private int maxBoards;
+    
+    @Value("${notes.placement.gap:20}")
+    private double placementGap;
+    
+    @Value("${notes.placement.max-candidates:2000}")
+    private int maxPlacementCandidates;
+    
+    private final NoteViewRepository noteViewRepository;
+    private final Map<Long, BoardSpatialIndex> indexes = new ConcurrentHashMap<>();
+    
+    @Autowired
+    public NoteSpatialIndexCache(NoteViewRepository noteViewRepository, MeterRegistry meterRegistry) {
+        this.noteViewRepository = noteViewRepository;
+        Gauge.builder("notes.spatial_index.boards", indexes, Map::size)
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Ids of the board's notes intersecting the viewport; builds the board's index on first use
+     */
+    public long[] query(Long boardId, Long userId, double minX, double minY, double maxX, double maxY) {
+        return indexFor(boardId, userId).query(minX, minY, maxX, maxY);
+    }
+    
+    /**
+     * Nearest free spot on the board for a note of the given size, see {@link BoardSpatialIndex#findFreeSpot}
+     */
+    public double[] findFreeSpot(Long boardId, Long userId, double anchorX, double anchorY, double width, double height) {
+        return indexFor(boardId, userId).findFreeSpot(anchorX, anchorY, width, height, placementGap, maxPlacementCandidates);
+    }
+    
+    /**
+     * The same search over notes that are not in the database, such as a demo sandbox board
+     */
+    public double[] findFreeSpot(List<Note> notes, double anchorX, double anchorY, double width, double height) {
+        BoardSpatialIndex index = new BoardSpatialIndex(cellSize);
+        for (Note note : notes) {
+            index.upsert(note.getId(), note.getPositionX(), note.getPositionY(),
+                    note.getWidth() != null ? note.getWidth() : 0,
+                    note.getHeight() != null ? note.getHeight() : 0);
+        }
+        return index.findFreeSpot(anchorX, anchorY, width, height, placementGap, maxPlacementCandidates);
+    }
+    
+    public double getPlacementGap() {
+        return placementGap;
+    }
+    
+    public void noteSaved(Note note) {
+        Long boardId = note.getBoardId();
+        if (boardId == null || !indexes.containsKey(boardId)) {
+            return;
+        }
+        long id = note.getId();
+        double x = note.getPositionX();
+        double y = note.getPositionY();
+        double width = note.getWidth() != null ? note.getWidth() : 0;
+        double height = note.getHeight() != null ? note.getHeight() : 0;
+        TransactionCallbacks.afterCommit(() -> indexes.computeIfPresent(boardId, (key, index) -> {
+            index.upsert(id, x, y, width, height);
+            return index;
+        }));
+    }
+    
+    /**
+     * Apply a move or resize by the user; only an index of that user's notes is updated, so an id
+     * of someone else's note can never move it in its owner's index
+     */
+    public void geometryChanged(Long noteId, Long userId, NoteGeometryRequest geometry) {
+        double x = geometry.getPositionX() != null ? geometry.getPositionX() : Double.NaN;
+        double y = geometry.getPositionY() != null ? geometry.getPositionY() : Double.NaN;
+        double width = geometry.getWidth() != null ? geometry.getWidth() : Double.NaN;
+        double height = geometry.getHeight() != null ? geometry.getHeight() : Double.NaN;
+        TransactionCallbacks.afterCommit(() -> {
+            for (BoardSpatialIndex index : indexes.values()) {
+                if (userId.equals(index.getOwnerId()) && index.contains(noteId)) {
+                    index.upsert(noteId, x, y, width, height);
+                    return;
+                }
+            }
+        });
+    }
+    
+    public void noteDeleted(Long noteId) {
+        TransactionCallbacks.afterCommit(() -> {
+            for (BoardSpatialIndex index : indexes.values()) {
+                if (index.remove(noteId)) {
+                    return;
+                }
+            }
+        });
+    }
+    
+    public void boardDeleted(Long boardId) {
+        indexes.remove(boardId);
+    }
+    
+    /**
+     * Drop the board's index after a bulk change; the next query rebuilds it
+     */
+    public void boardRearranged(Long boardId) {
+        TransactionCallbacks.afterCommit(() -> indexes.remove(boardId));
+    }
+    
+    public void clear() {
+        indexes.clear();
+    }
+    
+    @Scheduled(fixedDelayString = "${notes.spatial-index.eviction-interval-ms:60000}")
+    public void evictCold() {
+        long cutoff = System.currentTimeMillis() - idleMinutes * 60_000L;
+        indexes.values().removeIf(index -> index.getLastAccessMillis() < cutoff);
+    }
+    
+    private BoardSpatialIndex indexFor(Long boardId, Long userId) {
+        BoardSpatialIndex index = indexes.get(boardId);
+        if (index == null) {
+            if (indexes.size() >= maxBoards) {
+                evictLeastRecentlyUsed();
+            }
+            index = indexes.computeIfAbsent(boardId, id -> build(id, userId));
+        }
+        index.touch();
+        return index;
+    }
+    
+    private BoardSpatialIndex build(Long boardId, Long userId) {
+        BoardSpatialIndex index = new BoardSpatialIndex(cellSize, userId);
+        noteViewRepository.forEachGeometryOnBoard(boardId, userId, index::upsert);
+        return index;
+    }
+    
+    private void evictLeastRecentlyUsed() {
+        indexes.entrySet().stream()
+                .min(Comparator.comparingLong(entry -> entry.getValue().getLastAccessMillis()))
+                .ifPresent(entry -> indexes.remove(entry.getKey()));
+    }
+}
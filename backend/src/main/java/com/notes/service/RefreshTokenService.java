@@ -0,0 +1,103 @@
+package com.notes.service;
+
+import com.notes.entity.RefreshToken;
+import com.notes.repository.RefreshTokenRepository;
+import com.notes.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Issues and rotates refresh tokens. Each refresh token can be used once; presenting
+ * an already rotated token is treated as theft and revokes every refresh token of the user.
+ */
+@Service
+public class RefreshTokenService {
+    
+    @Value("${jwt.refresh-expiration:1209600000}") // 14 days in milliseconds
+    private long refreshExpiration;
+    
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final SecureRandom secureRandom = new SecureRandom();
+    
+    @Autowired
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, UserRepository userRepository) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+    }
+    
+    /**
+     * Issue a new refresh token; only its hash is stored
+     */
+    @Transactional
+    public String issue(Long userId) {
+        byte[] bytes = new byte[32];
+        secureRandom.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        
+        LocalDateTime expiresAt = LocalDateTime.now().plusNanos(refreshExpiration * 1_000_000L);
+        refreshTokenRepository.save(new RefreshToken(hash(token), userRepository.getReferenceById(userId), expiresAt));
+        return token;
+    }
+    
+    /**
+     * Exchange a refresh token for a new one, or empty if it is unknown, expired or already used
+     */
+    @Transactional
+    public Optional<RotatedRefreshToken> rotate(String token) {
+        Optional<RefreshToken> stored = refreshTokenRepository.findByTokenHash(hash(token));
+        if (stored.isEmpty()) {
+            return Optional.empty();
+        }
+        
+        RefreshToken refreshToken = stored.get();
+        Long userId = refreshToken.getUser().getId();
+        LocalDateTime now = LocalDateTime.now();
+        if (refreshToken.isExpired(now)) {
+            return Optional.empty();
+        }
+        if (refreshToken.isRevoked() || refreshTokenRepository.revokeIfActive(refreshToken.getId(), now) == 0) {
+            System.out.println("Refresh token reuse detected for user " + userId + ", revoking all refresh tokens");
+            refreshTokenRepository.revokeAllByUserId(userId, now);
+            return Optional.empty();
+        }
+        
+        return Optional.of(new RotatedRefreshToken(userId, refreshToken.getUser().getEmail(), issue(userId)));
+    }
+    
+    /**
+     * Revoke a refresh token on logout; tokens of other users are ignored
+     */
+    @Transactional
+    public void revoke(String token, Long userId) {
+        refreshTokenRepository.findByTokenHash(hash(token))
+                .filter(refreshToken -> refreshToken.getUser().getId().equals(userId))
+                .ifPresent(refreshToken -> refreshTokenRepository.revokeIfActive(refreshToken.getId(), LocalDateTime.now()));
+    }
+    
+    @Scheduled(fixedDelayString = "${jwt.refresh-cleanup-interval-ms:3600000}")
+    public void deleteExpired() {
+        refreshTokenRepository.deleteExpired(LocalDateTime.now());
+    }
+    
+    private static String hash(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.notes.service;
+
+/**
+ * Result of a successful refresh: the owner of the old token and its replacement
+ */
+public record RotatedRefreshToken(Long userId, String email, String refreshToken) {
+}
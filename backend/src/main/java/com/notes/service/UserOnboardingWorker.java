@@ -0,0 +1,176 @@
+package com.notes.service;
+
+import com.notes.entity.User;
+import com.notes.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Seeds the Main Board and default notes of newly registered users on a bounded
+ * background pool, so registration returns as soon as the user row commits.
+ * Failed seeding is retried with exponential backoff. A user is seeded at most once:
+ * duplicate events are dropped while one is in flight, and initializeUserData
+ * claims a user_onboarding row in the seeding transaction.
+ * When the queue is full the registering thread seeds synchronously instead;
+ * retries never run on the retry scheduler's thread and wait for room in the queue.
+ */
+@Component
+public class UserOnboardingWorker {
+
+    @Value("${notes.onboarding.worker-threads:2}")
+    private int workerThreads;
+
+    @Value("${notes.onboarding.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${notes.onboarding.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${notes.onboarding.retry-backoff-ms:500}")
+    private long retryBackoffMs;
+
+    private final DemoUserService demoUserService;
+    private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+    private final Set<OnboardingKey> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final Counter seededCounter;
+    private final Counter retryCounter;
+    private final Counter failedCounter;
+    private final Timer lagTimer;
+
+    private ThreadPoolExecutor executor;
+    private ScheduledExecutorService retryScheduler;
+
+    @Autowired
+    public UserOnboardingWorker(DemoUserService demoUserService,
+                                UserRepository userRepository,
+                                MeterRegistry meterRegistry) {
+        this.demoUserService = demoUserService;
+        this.userRepository = userRepository;
+        this.meterRegistry = meterRegistry;
+        this.seededCounter = meterRegistry.counter("notes.onboarding.seeded");
+        this.retryCounter = meterRegistry.counter("notes.onboarding.retries");
+        this.failedCounter = meterRegistry.counter("notes.onboarding.failed");
+        this.lagTimer = Timer.builder("notes.onboarding.lag")
+                .description("Time from registration to seeded default data")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "onboarding-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                this::rejected);
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "onboarding-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("notes.onboarding.queue.depth", executor, pool -> pool.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("notes.onboarding.in_flight", inFlight, Set::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registration saves the user in its own transaction, so the event may arrive
+     * outside one; fallbackExecution covers that case, the row is committed either way.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserRegistered(UserRegisteredEvent event) {
+        OnboardingKey key = new OnboardingKey(event.userId(), DemoUserService.MAIN_BOARD_NAME);
+        if (!inFlight.add(key)) {
+            return;
+        }
+        submit(event, key, 1);
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        retryScheduler.shutdownNow();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private void submit(UserRegisteredEvent event, OnboardingKey key, int attempt) {
+        Runnable task = () -> seed(event, key, attempt);
+        executor.execute(attempt == 1 ? task : new Retry(task));
+    }
+
+    private void rejected(Runnable task, ThreadPoolExecutor pool) {
+        if (pool.isShutdown()) {
+            return;
+        }
+        if (task instanceof Retry && !retryScheduler.isShutdown()) {
+            // Seeding here would block the scheduler and every other pending retry; try again later
+            retryScheduler.schedule(() -> executor.execute(task), retryBackoffMs, TimeUnit.MILLISECONDS);
+        } else {
+            task.run();
+        }
+    }
+
+    private void seed(UserRegisteredEvent event, OnboardingKey key, int attempt) {
+        try {
+            Optional<User> user = userRepository.findById(event.userId());
+            if (user.isPresent()) {
+                demoUserService.initializeUserData(user.get());
+                seededCounter.increment();
+                lagTimer.record(System.currentTimeMillis() - event.registeredAtMillis(), TimeUnit.MILLISECONDS);
+            }
+            inFlight.remove(key);
+        } catch (RuntimeException e) {
+            if (attempt < maxAttempts && !retryScheduler.isShutdown()) {
+                retryCounter.increment();
+                long delay = retryBackoffMs << (attempt - 1);
+                System.out.println("Seeding failed for " + event.email() + " (attempt " + attempt + "), retrying in " + delay + " ms");
+                retryScheduler.schedule(() -> submit(event, key, attempt + 1), delay, TimeUnit.MILLISECONDS);
+            } else {
+                failedCounter.increment();
+                inFlight.remove(key);
+                System.out.println("Seeding failed for " + event.email() + " after " + attempt + " attempts: " + e.getMessage());
+            }
+        }
+    }
+
+    private record OnboardingKey(Long userId, String boardName) {
+    }
+
+    private record Retry(Runnable task) implements Runnable {
+
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.notes.service;
+
+/**
+ * Published when a new user row has been saved. Default data is seeded from it
+ * by UserOnboardingWorker once the registration transaction has committed.
+ */
+public record UserRegisteredEvent(Long userId, String email, long registeredAtMillis) {
+}
@@ -1,8 +1,14 @@
 -- Initialize database schema for Notes Management Application
 
+-- Id sequences, allocated by Hibernate in blocks of 50 (pooled optimizer).
+-- INCREMENT BY must match allocationSize on the entities.
+CREATE SEQUENCE IF NOT EXISTS users_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS boards_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS notes_seq INCREMENT BY 50;
+
 -- Create users table
 CREATE TABLE IF NOT EXISTS users (
-    id BIGSERIAL PRIMARY KEY,
+    id BIGINT PRIMARY KEY DEFAULT nextval('users_seq'),
     email VARCHAR(255) UNIQUE NOT NULL,
     password VARCHAR(255) NOT NULL,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
@@ -10,7 +16,7 @@ CREATE TABLE IF NOT EXISTS users (
 
 -- Create boards table
 CREATE TABLE IF NOT EXISTS boards (
-    id BIGSERIAL PRIMARY KEY,
+    id BIGINT PRIMARY KEY DEFAULT nextval('boards_seq'),
     name VARCHAR(255) NOT NULL,
     created_at TIMESTAMP NOT NULL,
     user_id BIGINT REFERENCES users(id) ON DELETE CASCADE
@@ -18,7 +24,7 @@ CREATE TABLE IF NOT EXISTS boards (
 
 -- Create notes table (if not exists from JPA)
 CREATE TABLE IF NOT EXISTS notes (
-    id BIGSERIAL PRIMARY KEY,
+    id BIGINT PRIMARY KEY DEFAULT nextval('notes_seq'),
     title VARCHAR(255) NOT NULL,
     content TEXT,
     position_x DOUBLE PRECISION NOT NULL,
@@ -37,74 +43,86 @@ CREATE TABLE IF NOT EXISTS note_tags (
     tag VARCHAR(255) NOT NULL,
     PRIMARY KEY (note_id, tag)
 );
+-- Tags are returned in the order they were added; existing rows are numbered in their current order
+ALTER TABLE note_tags ADD COLUMN IF NOT EXISTS seq BIGINT GENERATED BY DEFAULT AS IDENTITY;
+
+-- Rotating refresh tokens (only the SHA-256 hash of each token is stored)
+CREATE SEQUENCE IF NOT EXISTS refresh_tokens_seq INCREMENT BY 50;
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    id BIGINT PRIMARY KEY DEFAULT nextval('refresh_tokens_seq'),
+    token_hash VARCHAR(64) UNIQUE NOT NULL,
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    created_at TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    revoked_at TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_user ON refresh_tokens (user_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_expires ON refresh_tokens (expires_at);
+
+-- Users whose default data has been seeded; the primary key lets seeding run at most once per user
+CREATE TABLE IF NOT EXISTS user_onboarding (
+    user_id BIGINT PRIMARY KEY REFERENCES users(id) ON DELETE CASCADE,
+    seeded_at TIMESTAMP NOT NULL
+);
+
+-- Access token ids revoked before expiry, reloaded periodically by every node
+CREATE TABLE IF NOT EXISTS revoked_tokens (
+    jti VARCHAR(64) PRIMARY KEY,
+    expires_at TIMESTAMP NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_revoked_tokens_expires ON revoked_tokens (expires_at);
+
+-- Databases created before the switch from BIGSERIAL: move id defaults to the pooled sequences
+-- and make sure the sequences never hand out ids that are already taken
+ALTER TABLE users ALTER COLUMN id SET DEFAULT nextval('users_seq');
+ALTER TABLE boards ALTER COLUMN id SET DEFAULT nextval('boards_seq');
+ALTER TABLE notes ALTER COLUMN id SET DEFAULT nextval('notes_seq');
+SELECT setval('users_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM users), (SELECT last_value FROM users_seq)));
+SELECT setval('boards_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM boards), (SELECT last_value FROM boards_seq)));
+SELECT setval('notes_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM notes), (SELECT last_value FROM notes_seq)));
+
+-- Indexes for user-scoped tag filtering (tag -> note ids, then notes by owner and board)
+CREATE INDEX IF NOT EXISTS idx_note_tags_tag_note ON note_tags (tag, note_id);
+CREATE INDEX IF NOT EXISTS idx_notes_user_board ON notes (user_id, board_id);
+
+-- Keyset pagination of a user's notes: one index per sort key, id as tie-breaker
+CREATE INDEX IF NOT EXISTS idx_notes_user_created ON notes (user_id, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_notes_user_title ON notes (user_id, title, id);
+
+-- Change feed for delta sync. A note or board write first bumps the owner's users.last_change_seq,
+-- which holds that users row lock until commit, so one user's changes commit in change_seq order.
+-- Rows written without taking the lock fall back to the column default.
+CREATE SEQUENCE IF NOT EXISTS change_seq;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS last_change_seq BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE notes ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP;
+ALTER TABLE notes ADD COLUMN IF NOT EXISTS change_seq BIGINT NOT NULL DEFAULT nextval('change_seq');
+ALTER TABLE boards ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP;
+ALTER TABLE boards ADD COLUMN IF NOT EXISTS change_seq BIGINT NOT NULL DEFAULT nextval('change_seq');
+UPDATE notes SET updated_at = created_at WHERE updated_at IS NULL;
+UPDATE boards SET updated_at = created_at WHERE updated_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_notes_user_change ON notes (user_id, change_seq, id);
+CREATE INDEX IF NOT EXISTS idx_boards_user_change ON boards (user_id, change_seq, id);
+
+-- Deleted notes and boards, kept for notes.changes.tombstone-retention-days; a board tombstone covers its notes
+CREATE TABLE IF NOT EXISTS change_tombstones (
+    change_seq BIGINT PRIMARY KEY DEFAULT nextval('change_seq'),
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    entity_type VARCHAR(10) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    board_id BIGINT,
+    deleted_at TIMESTAMP NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_change_tombstones_user ON change_tombstones (user_id, change_seq);
+CREATE INDEX IF NOT EXISTS idx_change_tombstones_deleted ON change_tombstones (deleted_at);
+
+-- Highest tombstone change_seq purged so far; older cursors can no longer be served incrementally
+CREATE TABLE IF NOT EXISTS change_feed_horizon (
+    id SMALLINT PRIMARY KEY,
+    purged_through BIGINT NOT NULL
+);
+INSERT INTO change_feed_horizon (id, purged_through) VALUES (1, 0) ON CONFLICT (id) DO NOTHING;
+
+-- Per-board version, incremented with every change to the board or its notes; backs board ETags
+ALTER TABLE boards ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
 
--- Demo user will be created by DataInitializer with properly encoded password
-
--- Create default "main board" for demo user if not exists
-INSERT INTO boards (name, created_at, user_id)
-SELECT 
-    'main board',
-    CURRENT_TIMESTAMP,
-    id
-FROM users WHERE email = 'demo@example.com'
-    AND NOT EXISTS (SELECT 1 FROM boards WHERE user_id = users.id)
-ON CONFLICT DO NOTHING;
-
--- Insert sample notes for demo user (associated with the main board)
-INSERT INTO notes (title, content, position_x, position_y, width, height, color, created_at, user_id, board_id)
-SELECT 
-    'Welcome to Notes Management!',
-    'This is a demo note. You can drag me around, edit me, or delete me. Try it out!',
-    100.0,
-    100.0,
-    385.0,
-    300.0,
-    '#fef3c7',
-    CURRENT_TIMESTAMP,
-    u.id,
-    b.id
-FROM users u
-CROSS JOIN boards b
-WHERE u.email = 'demo@example.com' 
-    AND b.user_id = u.id 
-    AND b.name = 'main board'
-    AND NOT EXISTS (SELECT 1 FROM notes WHERE user_id = u.id)
-ON CONFLICT DO NOTHING;
-
-INSERT INTO notes (title, content, position_x, position_y, width, height, color, created_at, user_id, board_id)
-SELECT 
-    'Getting Started',
-    E'1. Create new notes by clicking the + button\n2. Drag notes to organize\n3. Change note size by dragging the right bottom corner\n4. Use tags to categorize\n5. Set reminders\n6. Switch themes with the moon/sun button',
-    530.0,
-    150.0,
-    275.0,
-    500.0,
-    '#dbeafe',
-    CURRENT_TIMESTAMP,
-    u.id,
-    b.id
-FROM users u
-CROSS JOIN boards b
-WHERE u.email = 'demo@example.com' 
-    AND b.user_id = u.id 
-    AND b.name = 'main board'
-ON CONFLICT DO NOTHING;
-
-INSERT INTO notes (title, content, position_x, position_y, width, height, color, created_at, user_id, board_id)
-SELECT 
-    'Security Features',
-    E'This app uses:\n• JWT authentication\n• BCrypt password hashing\n• PostgreSQL database\n• Spring Security',
-    850.0,
-    50.0,
-    300.0,
-    350.0,
-    '#d1fae5',
-    CURRENT_TIMESTAMP,
-    u.id,
-    b.id
-FROM users u
-CROSS JOIN boards b
-WHERE u.email = 'demo@example.com' 
-    AND b.user_id = u.id 
-    AND b.name = 'main board'
-ON CONFLICT DO NOTHING;
+-- Demo user is created by DataInitializer; demo sessions keep their boards and notes in memory only
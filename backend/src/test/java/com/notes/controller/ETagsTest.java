@@ -0,0 +1,23 @@
+package com.notes.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ETagsTest {
+
+    @Test
+    void testTagIsQuotedAndJoined() {
+        assertEquals("\"n12-v7\"", ETags.of("n12", "v7"));
+    }
+
+    @Test
+    void testIfNoneMatchHandlesListsWildcardAndWeakTags() {
+        String etag = ETags.of("n12", "v7");
+        assertTrue(ETags.matches("\"n12-v7\"", etag));
+        assertTrue(ETags.matches("\"n12-v6\", W/\"n12-v7\"", etag));
+        assertTrue(ETags.matches("*", etag));
+        assertFalse(ETags.matches("\"n12-v6\"", etag));
+        assertFalse(ETags.matches(null, etag));
+    }
+}
@@ -0,0 +1,66 @@
+package com.notes.repository;
+
+import com.notes.entity.Board;
+import com.notes.entity.Note;
+import com.notes.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+public class NoteBatchInsertTest {
+
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BoardRepository boardRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void testSavingManyNotesUsesBatchedInserts() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        User user = userRepository.save(new User("batch-insert@example.com", "encoded"));
+        Board board = boardRepository.save(new Board("Batch Board", user));
+        entityManager.flush();
+        statistics.clear();
+
+        int noteCount = 5 * BATCH_SIZE;
+        List<Note> notes = new ArrayList<>();
+        for (int i = 0; i < noteCount; i++) {
+            Note note = new Note("Note " + i, "content", i * 10.0, i * 10.0);
+            note.setUser(user);
+            note.setBoard(board);
+            notes.add(note);
+        }
+        noteRepository.saveAll(notes);
+        entityManager.flush();
+
+        long batches = (noteCount + BATCH_SIZE - 1) / BATCH_SIZE;
+        // One sequence call per allocated block of ids plus one insert statement per JDBC batch
+        assertEquals(noteCount, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() <= 2 * batches,
+                "expected at most " + (2 * batches) + " statements, got " + statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,101 @@
+package com.notes.repository;
+
+import com.notes.entity.Board;
+import com.notes.entity.User;
+import com.notes.service.BoardService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: entities only reach the second-level cache once their transaction commits
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class SecondLevelCacheTest {
+
+    private static final String EMAIL = "l2-cache@example.com";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BoardRepository boardRepository;
+
+    @Autowired
+    private BoardService boardService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+    private User user;
+    private Board board;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManagerFactory.getCache().evictAll();
+        user = userRepository.save(new User(EMAIL, "encoded"));
+        board = boardRepository.save(new Board("Cached Board", user));
+    }
+
+    @AfterEach
+    void tearDown() {
+        boardRepository.deleteAllByUserId(user.getId());
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void testRepeatedUserLookupsByEmailRunNoSql() {
+        // Warm-up: one natural-id resolution and one entity load
+        assertTrue(userRepository.findByEmail(EMAIL).isPresent());
+        statistics.clear();
+
+        for (int i = 0; i < 5; i++) {
+            User found = userRepository.findByEmail(EMAIL).orElseThrow();
+            assertEquals(user.getId(), found.getId());
+        }
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(5, statistics.getNaturalIdCacheHitCount());
+    }
+
+    @Test
+    void testRepeatedBoardResolutionRunsNoSql() {
+        User principal = new User();
+        principal.setId(user.getId());
+        // Each request resolves the board in its own persistence context
+        TransactionTemplate request = new TransactionTemplate(transactionManager);
+        request.executeWithoutResult(status -> assertTrue(boardService.getBoardById(board.getId(), principal).isPresent()));
+        statistics.clear();
+
+        for (int i = 0; i < 5; i++) {
+            request.executeWithoutResult(status ->
+                    assertTrue(boardService.getBoardById(board.getId(), principal).isPresent()));
+        }
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(5, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    void testRenamedBoardIsNotServedStale() {
+        User principal = new User();
+        principal.setId(user.getId());
+        boardService.getBoardById(board.getId(), principal);
+
+        boardService.updateBoard(board.getId(), "Renamed", principal);
+
+        assertEquals("Renamed", boardService.getBoardById(board.getId(), principal).orElseThrow().getName());
+    }
+}
@@ -0,0 +1,65 @@
+package com.notes.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedPasswordEncoderTest {
+
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        if (encoder != null) {
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    void testEncodeAndMatchRunOnThePool() {
+        encoder = new BoundedPasswordEncoder(4, 1, 4, 5000, 1);
+
+        String hash = encoder.encode("secret");
+
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.matches("wrong", hash));
+        assertEquals(4, BoundedPasswordEncoder.costOf(hash));
+    }
+
+    @Test
+    void testOnlyHashesWithLowerCostAreUpgraded() {
+        encoder = new BoundedPasswordEncoder(5, 1, 4, 5000, 1);
+
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("secret")));
+        assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("secret")));
+        assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("secret")));
+        assertFalse(encoder.upgradeEncoding("not-a-bcrypt-hash"));
+    }
+
+    @Test
+    void testSaturatedPoolRejectsWithRetryAfter() {
+        encoder = new BoundedPasswordEncoder(12, 1, 1, 5000, 3);
+
+        List<CompletableFuture<String>> running = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            running.add(CompletableFuture.supplyAsync(() -> encoder.encode("slow")));
+        }
+        // One hash running and one queued; wait until both slots are taken
+        long deadline = System.currentTimeMillis() + 2000;
+        while (encoder.getQueueDepth() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+
+        PasswordHashingBusyException busy = assertThrows(PasswordHashingBusyException.class,
+                () -> encoder.encode("rejected"));
+        assertEquals(3, busy.getRetryAfterSeconds());
+        assertEquals(1, encoder.getRejectedCount());
+        running.forEach(CompletableFuture::join);
+    }
+}
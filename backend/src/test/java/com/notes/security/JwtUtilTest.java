@@ -0,0 +1,87 @@
+package com.notes.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JwtUtilTest {
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "mySecretKeyForNotesManagementApplication123456789");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 60_000L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", 2);
+        jwtUtil.init();
+    }
+
+    @Test
+    void testVerifyTokenCachesVerifiedClaims() {
+        String token = jwtUtil.generateToken("user@example.com");
+
+        VerifiedToken first = jwtUtil.verifyToken(token);
+        VerifiedToken second = jwtUtil.verifyToken(token);
+
+        assertNotNull(first);
+        assertEquals("user@example.com", first.getEmail());
+        assertSame(first, second);
+        assertEquals(1, jwtUtil.getCacheMisses());
+        assertEquals(1, jwtUtil.getCacheHits());
+    }
+
+    @Test
+    void testVerifyTokenCarriesUserId() {
+        VerifiedToken withId = jwtUtil.verifyToken(jwtUtil.generateToken("user@example.com", 42L));
+        VerifiedToken withoutId = jwtUtil.verifyToken(jwtUtil.generateToken("legacy@example.com"));
+
+        assertEquals(42L, withId.getUserId());
+        assertNull(withoutId.getUserId());
+    }
+
+    @Test
+    void testEveryTokenGetsItsOwnId() {
+        VerifiedToken first = jwtUtil.verifyToken(jwtUtil.generateToken("user@example.com", 42L));
+        VerifiedToken second = jwtUtil.verifyToken(jwtUtil.generateToken("user@example.com", 42L));
+
+        assertNotNull(first.getTokenId());
+        assertNotEquals(first.getTokenId(), second.getTokenId());
+    }
+
+    @Test
+    void testVerifyTokenRejectsTamperedToken() {
+        String token = jwtUtil.generateToken("user@example.com");
+        String tampered = token.substring(0, token.length() - 2) + "xx";
+
+        assertNull(jwtUtil.verifyToken(tampered));
+        assertNull(jwtUtil.verifyToken(null));
+        assertEquals(0, jwtUtil.getCacheSize());
+    }
+
+    @Test
+    void testVerifiedTokenCacheIsBounded() {
+        jwtUtil.verifyToken(jwtUtil.generateToken("a@example.com"));
+        jwtUtil.verifyToken(jwtUtil.generateToken("b@example.com"));
+        jwtUtil.verifyToken(jwtUtil.generateToken("c@example.com"));
+
+        assertTrue(jwtUtil.getCacheSize() <= 2);
+    }
+
+    @Test
+    void testFullCacheIsEvictedInBatches() {
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", 20);
+        for (int i = 0; i < 20; i++) {
+            jwtUtil.verifyToken(jwtUtil.generateToken("user" + i + "@example.com"));
+        }
+        assertEquals(20, jwtUtil.getCacheSize());
+
+        // One miss frees a tenth of the cache, so the next miss does not have to evict again
+        jwtUtil.verifyToken(jwtUtil.generateToken("next@example.com"));
+        assertEquals(19, jwtUtil.getCacheSize());
+        jwtUtil.verifyToken(jwtUtil.generateToken("after@example.com"));
+        assertEquals(20, jwtUtil.getCacheSize());
+    }
+}
@@ -0,0 +1,74 @@
+package com.notes.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Contention benchmark for the rate limiter, skipped in normal builds. Run with
+ * mvn test -Dtest=RateLimiterContentionBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class RateLimiterContentionBenchmark {
+
+    private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    private static final long DURATION_NANOS = TimeUnit.SECONDS.toNanos(3);
+
+    @Test
+    void benchmarkHotKey() throws InterruptedException {
+        // Every thread hits the same bucket: worst case for CAS contention
+        double checksPerSecond = run(new RateLimiter("hot", 1_000_000, 1_000_000), 1);
+        assertTrue(checksPerSecond > 50_000, "hot key: " + checksPerSecond + " checks/s");
+    }
+
+    @Test
+    void benchmarkManyKeys() throws InterruptedException {
+        // Realistic spread over many clients: contention only inside hash map bins
+        double checksPerSecond = run(new RateLimiter("spread", 100, 50), 10_000);
+        assertTrue(checksPerSecond > 50_000, "many keys: " + checksPerSecond + " checks/s");
+    }
+
+    private double run(RateLimiter limiter, int keyCount) throws InterruptedException {
+        String[] keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "client-" + i;
+        }
+
+        LongAdder checks = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            int seed = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    long end = System.nanoTime() + DURATION_NANOS;
+                    long local = 0;
+                    int index = seed;
+                    while (System.nanoTime() < end) {
+                        limiter.tryAcquire(keys[index % keyCount], System.nanoTime());
+                        index += 7;
+                        local++;
+                    }
+                    checks.add(local);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+            thread.start();
+        }
+
+        start.countDown();
+        done.await();
+        double checksPerSecond = checks.sum() / (DURATION_NANOS / 1e9);
+        System.out.printf("%s: %d threads, %d keys, %.0f checks/s%n", limiter.getName(), THREADS, keyCount, checksPerSecond);
+        return checksPerSecond;
+    }
+}
@@ -0,0 +1,49 @@
+package com.notes.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void testBurstUpToCapacityThenRefill() {
+        RateLimiter limiter = new RateLimiter("test", 3, 1.0);
+        long now = 10 * SECOND;
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("10.0.0.1", now));
+        }
+        long wait = limiter.tryAcquire("10.0.0.1", now);
+        assertTrue(wait > 0 && wait <= SECOND, "expected to wait up to one refill interval, got " + wait);
+
+        assertEquals(0, limiter.tryAcquire("10.0.0.1", now + SECOND));
+    }
+
+    @Test
+    void testKeysHaveIndependentBuckets() {
+        RateLimiter limiter = new RateLimiter("test", 1, 1.0);
+        long now = 10 * SECOND;
+
+        assertEquals(0, limiter.tryAcquire("user-1", now));
+        assertTrue(limiter.tryAcquire("user-1", now) > 0);
+        assertEquals(0, limiter.tryAcquire("user-2", now));
+    }
+
+    @Test
+    void testRefilledBucketsAreEvicted() {
+        RateLimiter limiter = new RateLimiter("test", 2, 1.0);
+        long now = 10 * SECOND;
+        limiter.tryAcquire("idle", now);
+        limiter.tryAcquire("busy", now);
+        limiter.tryAcquire("busy", now + 2 * SECOND);
+        limiter.tryAcquire("busy", now + 2 * SECOND);
+
+        assertEquals(1, limiter.evictIdle(now + 2 * SECOND));
+        assertEquals(1, limiter.size());
+    }
+}
@@ -0,0 +1,64 @@
+package com.notes.security;
+
+import com.notes.entity.RevokedToken;
+import com.notes.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class TokenRevocationListTest {
+
+    private RevokedTokenRepository repository;
+    private TokenRevocationList revocationList;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(RevokedTokenRepository.class);
+        revocationList = new TokenRevocationList();
+        ReflectionTestUtils.setField(revocationList, "expectedEntries", 1000);
+        ReflectionTestUtils.setField(revocationList, "falsePositiveRate", 0.001);
+        ReflectionTestUtils.setField(revocationList, "revokedTokenRepository", repository);
+        ReflectionTestUtils.setField(revocationList, "meterRegistry", new SimpleMeterRegistry());
+        revocationList.init();
+    }
+
+    @Test
+    void testRevokedTokenIsRejectedAndOthersAreNot() {
+        revocationList.revoke("revoked-jti", System.currentTimeMillis() + 60_000);
+
+        assertTrue(revocationList.isRevoked("revoked-jti"));
+        assertFalse(revocationList.isRevoked("other-jti"));
+        assertFalse(revocationList.isRevoked(null));
+        verify(repository).save(any(RevokedToken.class));
+    }
+
+    @Test
+    void testRefreshPicksUpRevocationsFromOtherNodesAndKeepsLocalOnes() {
+        revocationList.revoke("local-jti", System.currentTimeMillis() + 60_000);
+        when(repository.findActive(any(LocalDateTime.class)))
+                .thenReturn(List.of(new RevokedToken("remote-jti", LocalDateTime.now().plusMinutes(1))));
+
+        revocationList.refresh();
+
+        assertTrue(revocationList.isRevoked("remote-jti"));
+        assertTrue(revocationList.isRevoked("local-jti"));
+    }
+
+    @Test
+    void testExpiredLocalRevocationsAreDroppedOnRefresh() {
+        revocationList.revoke("expired-jti", System.currentTimeMillis() - 1);
+        when(repository.findActive(any(LocalDateTime.class))).thenReturn(List.of());
+
+        revocationList.refresh();
+
+        assertFalse(revocationList.isRevoked("expired-jti"));
+    }
+}
@@ -0,0 +1,65 @@
+package com.notes.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoardLayoutTest {
+
+    @Test
+    void testTidyRemovesOverlapsAndKeepsOrigin() {
+        Random rnd = new Random(7);
+        int n = 200;
+        double[] x = new double[n];
+        double[] y = new double[n];
+        double[] width = new double[n];
+        double[] height = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = 100 + rnd.nextDouble() * 500;
+            y[i] = 100 + rnd.nextDouble() * 500;
+            width[i] = i % 3 == 0 ? 0 : 100 + rnd.nextDouble() * 300;
+            height[i] = i % 3 == 0 ? 0 : 100 + rnd.nextDouble() * 300;
+        }
+        double originX = min(x);
+        double originY = min(y);
+
+        BoardLayout.tidy(x, y, width, height, 20);
+
+        assertEquals(originX, min(x));
+        assertEquals(originY, min(y));
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                boolean overlaps = x[i] < x[j] + size(width[j]) && x[j] < x[i] + size(width[i])
+                        && y[i] < y[j] + size(height[j]) && y[j] < y[i] + size(height[i]);
+                assertFalse(overlaps, "notes " + i + " and " + j + " overlap");
+            }
+        }
+    }
+
+    @Test
+    void testTidyKeepsReadingOrder() {
+        double[] x = {900, 100, 500};
+        double[] y = {100, 120, 110};
+        double[] size = {0, 0, 0};
+
+        BoardLayout.tidy(x, y, size, size.clone(), 20);
+
+        // Three default-size notes pack two per row: left to right, then on to the next row
+        assertArrayEquals(new double[] {100, 420, 100}, new double[] {x[1], x[2], x[0]});
+        assertArrayEquals(new double[] {100, 100, 420}, new double[] {y[1], y[2], y[0]});
+    }
+
+    private static double min(double[] values) {
+        double min = Double.MAX_VALUE;
+        for (double value : values) {
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+
+    private static double size(double value) {
+        return value > 0 ? value : BoardSpatialIndex.DEFAULT_NOTE_SIZE;
+    }
+}
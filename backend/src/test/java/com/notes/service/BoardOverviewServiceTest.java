@@ -0,0 +1,63 @@
+package com.notes.service;
+
+import com.notes.dto.OverviewTile;
+import com.notes.entity.Note;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoardOverviewServiceTest {
+
+    @Test
+    void testNotesAreGroupedIntoCellsWithBoundsAndDominantColor() {
+        List<Note> notes = List.of(
+                note(0, 0, "#fef3c7"),
+                note(100, 50, "#dbeafe"),
+                note(150, 100, "#dbeafe"),
+                note(1000, 1000, "#fef3c7"));
+
+        List<OverviewTile> tiles = BoardOverviewService.aggregate(notes, 2);
+
+        assertEquals(2, tiles.size());
+        OverviewTile first = tiles.get(0);
+        assertEquals(0, first.column());
+        assertEquals(0, first.row());
+        assertEquals(3, first.noteCount());
+        assertEquals("#dbeafe", first.dominantColor());
+        assertEquals(0, first.minX());
+        assertEquals(150 + BoardSpatialIndex.DEFAULT_NOTE_SIZE, first.maxX());
+
+        // The far corner of the extent lands in the last cell rather than outside the grid
+        OverviewTile last = tiles.get(1);
+        assertEquals(1, last.column());
+        assertEquals(1, last.row());
+        assertEquals(1, last.noteCount());
+    }
+
+    @Test
+    void testTileCountIsBoundedByGridSize() {
+        List<Note> notes = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            notes.add(note((i * 7919) % 20_000, (i * 104_729) % 20_000, "#fef3c7"));
+        }
+
+        List<OverviewTile> tiles = BoardOverviewService.aggregate(notes, 8);
+
+        assertTrue(tiles.size() <= 64);
+        assertEquals(10_000, tiles.stream().mapToLong(OverviewTile::noteCount).sum());
+    }
+
+    @Test
+    void testEmptyBoardHasNoTiles() {
+        assertTrue(BoardOverviewService.aggregate(List.of(), 4).isEmpty());
+    }
+
+    private static Note note(double x, double y, String color) {
+        Note note = new Note("n", "", x, y);
+        note.setColor(color);
+        return note;
+    }
+}
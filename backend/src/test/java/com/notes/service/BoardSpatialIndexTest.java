@@ -0,0 +1,129 @@
+package com.notes.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoardSpatialIndexTest {
+
+    private BoardSpatialIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BoardSpatialIndex(1000);
+        index.upsert(1, 0, 0, 300, 300);
+        index.upsert(2, 2500, 2500, 300, 300);
+        index.upsert(3, 900, 900, 300, 300); // spans four cells
+    }
+
+    @Test
+    void testQueryReturnsOnlyIntersectingNotesOnce() {
+        assertArrayEquals(new long[] {1, 3}, sorted(index.query(0, 0, 1000, 1000)));
+        assertArrayEquals(new long[] {3}, sorted(index.query(1100, 1100, 1500, 1500)));
+        assertArrayEquals(new long[] {}, index.query(5000, 5000, 6000, 6000));
+    }
+
+    @Test
+    void testMoveAndDeleteKeepIndexCurrent() {
+        index.upsert(1, 2600, 2600, Double.NaN, Double.NaN);
+        assertArrayEquals(new long[] {3}, sorted(index.query(0, 0, 1000, 1000)));
+        assertArrayEquals(new long[] {1, 2}, sorted(index.query(2400, 2400, 3000, 3000)));
+
+        // Removing the first slot moves the last note into it
+        assertTrue(index.remove(1));
+        assertFalse(index.remove(1));
+        assertEquals(2, index.size());
+        assertArrayEquals(new long[] {2}, sorted(index.query(2400, 2400, 3000, 3000)));
+        assertArrayEquals(new long[] {3}, sorted(index.query(1100, 1100, 1500, 1500)));
+    }
+
+    @Test
+    void testMissingSizeUsesDefault() {
+        index.upsert(4, 5000, 5000, 0, 0);
+
+        assertArrayEquals(new long[] {4}, index.query(5290, 5290, 5299, 5299));
+    }
+
+    @Test
+    void testMatchesBruteForceOnRandomNotes() {
+        BoardSpatialIndex random = new BoardSpatialIndex(512);
+        Random rnd = new Random(42);
+        double[][] rects = new double[500][];
+        for (int i = 0; i < rects.length; i++) {
+            rects[i] = new double[] {rnd.nextDouble() * 10_000, rnd.nextDouble() * 10_000,
+                    50 + rnd.nextDouble() * 400, 50 + rnd.nextDouble() * 400};
+            random.upsert(i, rects[i][0], rects[i][1], rects[i][2], rects[i][3]);
+        }
+
+        for (int q = 0; q < 50; q++) {
+            double minX = rnd.nextDouble() * 10_000;
+            double minY = rnd.nextDouble() * 10_000;
+            double maxX = minX + rnd.nextDouble() * 3000;
+            double maxY = minY + rnd.nextDouble() * 3000;
+            long[] expected = new long[rects.length];
+            int count = 0;
+            for (int i = 0; i < rects.length; i++) {
+                if (rects[i][0] <= maxX && rects[i][0] + rects[i][2] >= minX
+                        && rects[i][1] <= maxY && rects[i][1] + rects[i][3] >= minY) {
+                    expected[count++] = i;
+                }
+            }
+            assertArrayEquals(Arrays.copyOf(expected, count), sorted(random.query(minX, minY, maxX, maxY)));
+        }
+    }
+
+    @Test
+    void testHugeRectanglesAndViewportsStayBounded() {
+        // Would link more than 10^12 cells; kept aside instead and still found by every lookup
+        index.upsert(4, -1e9, -1e9, 2e9, 2e9);
+        assertArrayEquals(new long[] {1, 3, 4}, sorted(index.query(0, 0, 1000, 1000)));
+        assertArrayEquals(new long[] {4}, index.query(5000, 5000, 6000, 6000));
+        assertArrayEquals(new long[] {1, 2, 3, 4}, sorted(index.query(-1e300, -1e300, 1e300, 1e300)));
+
+        index.upsert(4, 5000, 5000, 300, 300);
+        assertArrayEquals(new long[] {4}, index.query(5000, 5000, 6000, 6000));
+        assertTrue(index.remove(4));
+        assertArrayEquals(new long[] {}, index.query(5000, 5000, 6000, 6000));
+
+        double[] spot = index.findFreeSpot(0, 0, 1e12, 300, 20, 100);
+        assertEquals(0, index.query(spot[0] + 1, spot[1] + 1, spot[0] + 1e12 - 1, spot[1] + 299).length);
+    }
+
+    @Test
+    void testFreeSpotIsAnchorWhenFreeAndBesideBlockerOtherwise() {
+        assertArrayEquals(new double[] {5000, 5000}, index.findFreeSpot(5000, 5000, 300, 300, 20, 100));
+
+        // Anchor is covered by note 1 (0..300); the nearest free spots are right of or below it
+        double[] spot = index.findFreeSpot(0, 0, 300, 300, 20, 100);
+        assertTrue(Arrays.equals(new double[] {320, 0}, spot) || Arrays.equals(new double[] {0, 320}, spot));
+
+        // Non-finite input is treated as missing instead of producing a NaN spot
+        assertArrayEquals(spot, index.findFreeSpot(Double.NaN, Double.NEGATIVE_INFINITY, Double.NaN, Double.POSITIVE_INFINITY, 20, 100));
+    }
+
+    @Test
+    void testFreeSpotNeverOverlapsInCrowdedArea() {
+        BoardSpatialIndex crowded = new BoardSpatialIndex(1000);
+        long id = 0;
+        for (int x = 0; x < 3000; x += 310) {
+            for (int y = 0; y < 3000; y += 310) {
+                crowded.upsert(id++, x, y, 300, 300);
+            }
+        }
+        for (int i = 0; i < 20; i++) {
+            double[] spot = crowded.findFreeSpot(1500, 1500, 300, 300, 20, 2000);
+            assertEquals(0, crowded.query(spot[0] + 1, spot[1] + 1, spot[0] + 299, spot[1] + 299).length);
+            crowded.upsert(id++, spot[0], spot[1], 300, 300);
+        }
+    }
+
+    private static long[] sorted(long[] ids) {
+        long[] copy = ids.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}
@@ -0,0 +1,65 @@
+package com.notes.service;
+
+import com.notes.repository.BoardVersionRepository;
+import com.notes.repository.BoardVersionRepository.BoardVersion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class BoardVersionsTest {
+
+    private BoardVersionRepository repository;
+    private BoardVersions boardVersions;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(BoardVersionRepository.class);
+        boardVersions = new BoardVersions(repository);
+        ReflectionTestUtils.setField(boardVersions, "maxTrackedBoards", 100);
+        when(repository.find(1L)).thenReturn(new BoardVersion(7L, 3L));
+    }
+
+    @Test
+    void testVersionIsLoadedOnceThenServedFromMemory() {
+        assertEquals(OptionalLong.of(3), boardVersions.versionFor(1L, 7L));
+        assertEquals(OptionalLong.of(3), boardVersions.versionFor(1L, 7L));
+        assertEquals(3, boardVersions.current(1L));
+        verify(repository, times(1)).find(1L);
+    }
+
+    @Test
+    void testOtherUsersAndMissingBoardsHaveNoVersion() {
+        assertTrue(boardVersions.versionFor(1L, 8L).isEmpty());
+        assertTrue(boardVersions.versionFor(2L, 7L).isEmpty());
+        assertEquals(0, boardVersions.current(2L));
+    }
+
+    @Test
+    void testChangesAdvanceTheMirrorWithoutReloading() {
+        boardVersions.current(1L);
+        when(repository.increment(1L)).thenReturn(4L);
+        boardVersions.boardChanged(1L);
+        assertEquals(4, boardVersions.current(1L));
+
+        when(repository.incrementBoardsOfNotes(any())).thenReturn(Map.of(1L, 5L));
+        boardVersions.notesMoved(List.of(10L, 11L));
+        assertEquals(5, boardVersions.current(1L));
+        verify(repository, times(1)).find(1L);
+    }
+
+    @Test
+    void testDeletedBoardsAreReloaded() {
+        boardVersions.current(1L);
+        boardVersions.boardDeleted(1L);
+        when(repository.find(1L)).thenReturn(null);
+        assertTrue(boardVersions.versionFor(1L, 7L).isEmpty());
+    }
+}
@@ -0,0 +1,91 @@
+package com.notes.service;
+
+import com.notes.dto.NoteView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class BoardViewCacheTest {
+
+    private BoardVersions boardVersions;
+    private BoardViewCache cache;
+
+    @BeforeEach
+    void setUp() {
+        boardVersions = mock(BoardVersions.class);
+        cache = new BoardViewCache(boardVersions, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "maxBytes", 1_000_000L);
+        ReflectionTestUtils.setField(cache, "maxBytesPerUser", 1_000_000L);
+    }
+
+    @Test
+    void testSnapshotIsServedOnlyAtItsVersion() {
+        when(boardVersions.current(1L)).thenReturn(3L);
+        cache.put(1L, 7L, 3, List.of(note(1, 1L)));
+
+        assertEquals(1, cache.get(1L, 7L).size());
+        assertNull(cache.get(1L, 8L));
+
+        when(boardVersions.current(1L)).thenReturn(4L);
+        assertNull(cache.get(1L, 7L));
+        assertEquals(1.0 / 3, cache.getHitRatio(), 1e-9);
+    }
+
+    @Test
+    void testWritesOneVersionAheadPatchTheSnapshot() {
+        cache.put(1L, 7L, 3, List.of(note(1, 1L), note(5, 1L)));
+
+        cache.noteSaved(note(3, 1L), 4);
+        cache.noteDeleted(1L, 1L, 5);
+        // Not the next version: the snapshot is left behind and no longer served
+        cache.noteSaved(note(9, 1L), 7);
+
+        when(boardVersions.current(1L)).thenReturn(5L);
+        assertEquals(List.of(3L, 5L), cache.get(1L, 7L).stream().map(NoteView::id).toList());
+    }
+
+    @Test
+    void testOneUserCannotTakeMoreThanItsShare() {
+        long boardBytes = BoardViewCache.estimateBytes(List.of(note(1, 1L)));
+        ReflectionTestUtils.setField(cache, "maxBytesPerUser", 2 * boardBytes);
+        when(boardVersions.current(anyLong())).thenReturn(1L);
+
+        cache.put(100L, 9L, 1, List.of(note(1, 100L)));
+        for (long board = 1; board <= 5; board++) {
+            cache.put(board, 7L, 1, List.of(note(board, board)));
+        }
+
+        // User 7 keeps its two most recent boards, user 9 is untouched
+        assertNotNull(cache.get(100L, 9L));
+        assertNull(cache.get(3L, 7L));
+        assertNotNull(cache.get(4L, 7L));
+        assertNotNull(cache.get(5L, 7L));
+        assertEquals(3 * boardBytes, cache.getTotalBytes());
+    }
+
+    @Test
+    void testTotalBytesAreBounded() {
+        long boardBytes = BoardViewCache.estimateBytes(List.of(note(1, 1L)));
+        ReflectionTestUtils.setField(cache, "maxBytes", 3 * boardBytes);
+
+        for (long board = 1; board <= 10; board++) {
+            cache.put(board, board, 1, List.of(note(board, board)));
+        }
+
+        assertEquals(3 * boardBytes, cache.getTotalBytes());
+        cache.boardDeleted(10L);
+        assertEquals(2 * boardBytes, cache.getTotalBytes());
+    }
+
+    private static NoteView note(long id, Long boardId) {
+        return new NoteView(id, "Note", "content", 0, 0, 200, 200, "#ffeb3b",
+                LocalDateTime.of(2024, 1, 1, 0, 0), List.of("work"), boardId);
+    }
+}
@@ -0,0 +1,95 @@
+package com.notes.service;
+
+import com.notes.dto.ChangeCursor;
+import com.notes.dto.NoteChanges;
+import com.notes.dto.NoteView;
+import com.notes.dto.Tombstone;
+import com.notes.entity.Board;
+import com.notes.entity.Note;
+import com.notes.entity.User;
+import com.notes.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+public class ChangeFeedServiceTest {
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private BoardService boardService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+    private Board board;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User("change-feed@example.com", "encoded"));
+        board = boardService.createBoard(new Board("Feed Board", user), user);
+    }
+
+    @Test
+    void testPagesCoverEveryChangeOnce() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(noteService.createNote(note("Note " + i)).getId());
+        }
+        noteService.deleteNote(ids.get(0), user);
+
+        List<Long> seen = new ArrayList<>();
+        List<Tombstone> deleted = new ArrayList<>();
+        ChangeCursor cursor = ChangeCursor.START;
+        NoteChanges page;
+        do {
+            page = changeFeedService.getChanges(user, cursor, 2);
+            page.notes().stream().map(NoteView::id).forEach(seen::add);
+            deleted.addAll(page.deleted());
+            cursor = ChangeCursor.decode(page.cursor());
+        } while (page.hasMore());
+
+        assertEquals(ids.subList(1, 5), seen);
+        assertEquals(1, deleted.size());
+        assertEquals(ids.get(0), deleted.get(0).id());
+
+        // Nothing new after the last cursor
+        NoteChanges empty = changeFeedService.getChanges(user, cursor, 2);
+        assertTrue(empty.notes().isEmpty() && empty.boards().isEmpty() && empty.deleted().isEmpty());
+        assertFalse(empty.reset());
+    }
+
+    @Test
+    void testUpdatedNoteMovesToTheEndOfTheFeed() {
+        Note first = noteService.createNote(note("First"));
+        noteService.createNote(note("Second"));
+        ChangeCursor cursor = ChangeCursor.decode(changeFeedService.getChanges(user, ChangeCursor.START, 100).cursor());
+
+        noteService.updateNote(first.getId(), note("First, edited"), user);
+
+        NoteChanges changes = changeFeedService.getChanges(user, cursor, 100);
+        assertEquals(1, changes.notes().size());
+        assertEquals("First, edited", changes.notes().get(0).title());
+    }
+
+    private Note note(String title) {
+        Note note = new Note(title, "content", 10.0, 20.0);
+        note.setUser(user);
+        note.setBoard(board);
+        return note;
+    }
+}
@@ -0,0 +1,44 @@
+package com.notes.service;
+
+import com.notes.entity.User;
+import com.notes.exception.DemoSessionExpiredException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DemoSandboxStoreTest {
+
+    private DemoSandboxStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new DemoSandboxStore();
+        ReflectionTestUtils.setField(store, "maxSandboxes", 10);
+        ReflectionTestUtils.setField(store, "ttlMinutes", 120L);
+    }
+
+    @Test
+    void testSandboxOpensOnlyForItsOwnSession() {
+        DemoSandbox first = store.create("demo@example.com");
+        DemoSandbox second = store.create("demo@example.com");
+        Long userId = first.getUser().getId();
+
+        assertTrue(userId < 0);
+        assertNotEquals(userId, second.getUser().getId());
+        assertTrue(store.isActiveSession(userId, first.getSessionId()));
+        assertFalse(store.isActiveSession(userId, second.getSessionId()));
+        assertFalse(store.isActiveSession(userId, null));
+    }
+
+    @Test
+    void testEvictedSandboxIsRejectedInsteadOfFallingThrough() {
+        DemoSandbox sandbox = store.create("demo@example.com");
+        User user = sandbox.getUser();
+        store.remove(user.getId());
+
+        assertFalse(store.isActiveSession(user.getId(), sandbox.getSessionId()));
+        assertThrows(DemoSessionExpiredException.class, () -> store.get(user));
+    }
+}
@@ -0,0 +1,104 @@
+package com.notes.service;
+
+import com.notes.entity.Board;
+import com.notes.security.TokenRevocationList;
+import com.notes.security.UserCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class InvalidationBusTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private BoardVersions boardVersions;
+    private NoteSpatialIndexCache spatialIndex;
+    private NoteSearchService noteSearch;
+    private UserCache userCache;
+    private TokenRevocationList revocationList;
+    private Cache secondLevelCache;
+    private InvalidationBus bus;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        boardVersions = mock(BoardVersions.class);
+        spatialIndex = mock(NoteSpatialIndexCache.class);
+        noteSearch = mock(NoteSearchService.class);
+        userCache = mock(UserCache.class);
+        revocationList = mock(TokenRevocationList.class);
+        secondLevelCache = mock(Cache.class);
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.getCache()).thenReturn(secondLevelCache);
+        bus = new InvalidationBus(jdbcTemplate, boardVersions, mock(BoardViewCache.class), spatialIndex, noteSearch,
+                userCache, revocationList, entityManagerFactory, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(bus, "enabled", true);
+        ReflectionTestUtils.setField(bus, "channel", "notes_invalidation");
+    }
+
+    @Test
+    void testEventRoundTripKeepsSeparatorsInTheKey() {
+        InvalidationBus.Event event = new InvalidationBus.Event("node1", InvalidationBus.USER, 7L, null, "a|b@example.com");
+        assertEquals(event, InvalidationBus.Event.decode(event.encode()));
+        assertNull(InvalidationBus.Event.decode("garbage"));
+        assertNull(InvalidationBus.Event.decode("node1|notes|x|1|"));
+    }
+
+    @Test
+    void testPublishesOnTheChannel() {
+        bus.notesChanged(7L, 3L);
+
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).queryForList(eq("SELECT pg_notify(?, ?)"), eq("notes_invalidation"), payload.capture());
+        InvalidationBus.Event event = InvalidationBus.Event.decode(payload.getValue());
+        assertEquals(InvalidationBus.NOTES, event.type());
+        assertEquals(7L, event.userId());
+        assertEquals(3L, event.id());
+    }
+
+    @Test
+    void testNothingIsPublishedWhenDisabled() {
+        ReflectionTestUtils.setField(bus, "enabled", false);
+        bus.boardChanged(3L);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testOwnEventsAreIgnored() {
+        bus.boardChanged(3L);
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).queryForList(anyString(), eq("notes_invalidation"), payload.capture());
+
+        bus.receive(payload.getValue());
+
+        verifyNoInteractions(boardVersions, spatialIndex, secondLevelCache);
+    }
+
+    @Test
+    void testRemoteNoteChangeDropsBoardStateAndSearchIndex() {
+        bus.receive(new InvalidationBus.Event("other", InvalidationBus.NOTES, 7L, 3L, null).encode());
+
+        verify(boardVersions).evict(3L);
+        verify(spatialIndex).boardRearranged(3L);
+        verify(secondLevelCache).evict(Board.class, 3L);
+        verify(noteSearch).userChanged(7L);
+    }
+
+    @Test
+    void testRemoteRevocationAndUserChange() {
+        bus.receive(new InvalidationBus.Event("other", InvalidationBus.TOKEN_REVOKED, null, 5000L, "jti-1").encode());
+        bus.receive(new InvalidationBus.Event("other", InvalidationBus.USER, 7L, null, "user@example.com").encode());
+
+        verify(revocationList).revokedElsewhere("jti-1", 5000L);
+        verify(userCache).evict("user@example.com");
+    }
+}
@@ -0,0 +1,116 @@
+package com.notes.service;
+
+import com.notes.dto.NoteGeometryRequest;
+import com.notes.repository.ChangeFeedRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class NoteGeometryWriteBehindTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private BoardVersions boardVersions;
+    private NoteGeometryWriteBehind writeBehind;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        // Every row matches unless a test says otherwise
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), any(int[].class)))
+                .thenAnswer(invocation -> {
+                    int[] counts = new int[invocation.<List<?>>getArgument(1).size()];
+                    Arrays.fill(counts, 1);
+                    return counts;
+                });
+        boardVersions = mock(BoardVersions.class);
+        writeBehind = new NoteGeometryWriteBehind(jdbcTemplate, mock(ChangeFeedRepository.class), boardVersions,
+                mock(InvalidationBus.class), mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(writeBehind, "enabled", true);
+        ReflectionTestUtils.setField(writeBehind, "batchSize", 500);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRepeatedMovesAreCoalescedIntoOneRow() {
+        for (int i = 0; i < 10; i++) {
+            writeBehind.enqueue(1L, 7L, new NoteGeometryRequest((double) i, (double) i, null, null));
+        }
+        writeBehind.enqueue(1L, 7L, new NoteGeometryRequest(null, null, 320.0, 240.0));
+
+        writeBehind.flush();
+
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), batch.capture(), any(int[].class));
+        assertEquals(1, batch.getValue().size());
+        Object[] row = batch.getValue().get(0);
+        assertArrayEquals(new Object[] {9.0, 9.0, 320.0, 240.0, 0L}, Arrays.copyOfRange(row, 0, 5));
+        assertArrayEquals(new Object[] {1L, 7L}, Arrays.copyOfRange(row, 6, 8));
+        assertEquals(11.0, writeBehind.getCoalescingRatio());
+    }
+
+    @Test
+    void testFlushUserOnlyWritesThatUsersNotes() {
+        writeBehind.enqueue(1L, 7L, new NoteGeometryRequest(1.0, 1.0, null, null));
+        writeBehind.enqueue(2L, 8L, new NoteGeometryRequest(2.0, 2.0, null, null));
+
+        writeBehind.flushUser(7L);
+        assertEquals(1, writeBehind.getRowsWritten());
+
+        writeBehind.flush();
+        assertEquals(2, writeBehind.getRowsWritten());
+    }
+
+    @Test
+    void testOnlyUpdatedRowsMoveBoardVersions() {
+        // Note 1 belongs to someone else, so its UPDATE ... AND user_id = ? matches no row
+        writeBehind.enqueue(1L, 7L, new NoteGeometryRequest(1.0, 1.0, null, null));
+        writeBehind.enqueue(2L, 7L, new NoteGeometryRequest(2.0, 2.0, null, null));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), any(int[].class)))
+                .thenAnswer(invocation -> invocation.<List<Object[]>>getArgument(1).stream()
+                        .mapToInt(row -> row[6].equals(1L) ? 0 : 1)
+                        .toArray());
+
+        writeBehind.flush();
+
+        verify(boardVersions).notesMoved(Set.of(2L));
+    }
+
+    @Test
+    void testFlushWithNothingPendingDoesNotTouchDatabase() {
+        writeBehind.flush();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFailedFlushKeepsMovesAndNewerValuesWin() {
+        writeBehind.enqueue(1L, 7L, new NoteGeometryRequest(1.0, 1.0, null, null));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), any(int[].class)))
+                .thenThrow(new DataAccessResourceFailureException("connection lost"))
+                .thenReturn(new int[] {1});
+
+        assertThrows(DataAccessResourceFailureException.class, () -> writeBehind.flush());
+        writeBehind.enqueue(1L, 7L, new NoteGeometryRequest(5.0, null, null, null));
+        writeBehind.flush();
+
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), batch.capture(), any(int[].class));
+        Object[] row = batch.getValue().get(0);
+        assertArrayEquals(new Object[] {5.0, 1.0}, Arrays.copyOfRange(row, 0, 2));
+        assertEquals(1, writeBehind.getRowsWritten());
+    }
+}
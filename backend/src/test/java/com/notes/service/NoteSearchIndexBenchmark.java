@@ -0,0 +1,85 @@
+package com.notes.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Search latency at 100k notes for one user, skipped in normal builds. Run with
+ * mvn test -Dtest=NoteSearchIndexBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class NoteSearchIndexBenchmark {
+
+    private static final int NOTES = 100_000;
+    private static final int VOCABULARY = 20_000;
+    private static final int QUERIES = 5_000;
+
+    @Test
+    void benchmarkSearchAt100kNotes() {
+        Random rnd = new Random(42);
+        String[] words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            words[i] = randomWord(rnd);
+        }
+
+        NoteSearchIndex index = new NoteSearchIndex(2);
+        long buildStart = System.nanoTime();
+        for (int id = 0; id < NOTES; id++) {
+            index.put(id, id % 20, sentence(rnd, words, 4), sentence(rnd, words, 40),
+                    List.of(words[zipf(rnd)], words[zipf(rnd)]));
+        }
+        long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+
+        String[] queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String word = words[zipf(rnd)];
+            queries[i] = switch (i % 3) {
+                case 0 -> word;
+                case 1 -> word.substring(0, Math.min(3, word.length()));
+                default -> word + " " + words[zipf(rnd)].substring(0, 2);
+            };
+        }
+        for (String query : queries) {
+            index.search(query, null, 50);
+        }
+
+        long[] nanos = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            long start = System.nanoTime();
+            index.search(queries[i], i % 2 == 0 ? null : (long) (i % 20), 50);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        double p50 = nanos[QUERIES / 2] / 1e6;
+        double p99 = nanos[QUERIES * 99 / 100] / 1e6;
+        System.out.printf("built %d notes in %d ms, search p50 %.3f ms, p99 %.3f ms%n", NOTES, buildMillis, p50, p99);
+        assertTrue(p99 < 5, "p99 search latency " + p99 + " ms");
+    }
+
+    // Word frequencies in notes are heavily skewed; favour low indexes
+    private static int zipf(Random rnd) {
+        return (int) Math.min(VOCABULARY - 1, Math.floor(Math.pow(VOCABULARY, rnd.nextDouble())) - 1);
+    }
+
+    private static String sentence(Random rnd, String[] words, int length) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sentence.append(words[zipf(rnd)]).append(' ');
+        }
+        return sentence.toString();
+    }
+
+    private static String randomWord(Random rnd) {
+        char[] word = new char[3 + rnd.nextInt(8)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = (char) ('a' + rnd.nextInt(26));
+        }
+        return new String(word);
+    }
+}
@@ -0,0 +1,63 @@
+package com.notes.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NoteSearchIndexTest {
+
+    private NoteSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new NoteSearchIndex(2);
+        index.put(1, 10, "Groceries", "milk, eggs and bread", List.of("home"));
+        index.put(2, 10, "Meeting notes", "Discuss the grocery budget", List.of("work"));
+        index.put(3, 20, "Bread recipe", "Flour, water, salt", List.of("cooking", "home"));
+    }
+
+    @Test
+    void testTitleMatchesRankAboveContentMatches() {
+        assertArrayEquals(new long[] {3, 1}, index.search("bread", null, 10));
+        assertArrayEquals(new long[] {1, 2}, index.search("groc", null, 10));
+    }
+
+    @Test
+    void testEveryWordMustMatchAndBoardFilterApplies() {
+        assertArrayEquals(new long[] {1}, index.search("Home MILK", null, 10));
+        assertArrayEquals(new long[] {3}, index.search("home", 20L, 10));
+        assertArrayEquals(new long[] {}, index.search("home budget", null, 10));
+    }
+
+    @Test
+    void testShortWordsOnlyMatchWholeTerms() {
+        index.put(4, 10, "A list", "a b c", List.of());
+        assertArrayEquals(new long[] {4}, index.search("a", null, 10));
+    }
+
+    @Test
+    void testUpdatesAndDeletesAreIncremental() {
+        index.put(1, 10, "Hardware store", "screws", List.of());
+        assertArrayEquals(new long[] {3}, index.search("bread", null, 10));
+        assertArrayEquals(new long[] {1}, index.search("screw", null, 10));
+
+        assertTrue(index.remove(3));
+        assertArrayEquals(new long[] {}, index.search("bread", null, 10));
+
+        index.removeBoard(10);
+        assertEquals(0, index.size());
+        assertArrayEquals(new long[] {}, index.search("meeting", null, 10));
+    }
+
+    @Test
+    void testLimitKeepsBestMatches() {
+        for (long id = 100; id < 200; id++) {
+            index.put(id, 30, "task " + id, "", List.of());
+        }
+        long[] top = index.search("task", 30L, 5);
+        assertArrayEquals(new long[] {199, 198, 197, 196, 195}, top);
+    }
+}
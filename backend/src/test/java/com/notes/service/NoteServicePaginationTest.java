@@ -0,0 +1,108 @@
+package com.notes.service;
+
+import com.notes.dto.NoteCursor;
+import com.notes.dto.NotePage;
+import com.notes.dto.NoteSort;
+import com.notes.dto.NoteView;
+import com.notes.entity.Board;
+import com.notes.entity.Note;
+import com.notes.entity.User;
+import com.notes.repository.BoardRepository;
+import com.notes.repository.NoteRepository;
+import com.notes.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+public class NoteServicePaginationTest {
+
+    private static final int NOTE_COUNT = 25;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BoardRepository boardRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User("paging@example.com", "encoded"));
+        Board board = boardRepository.save(new Board("Paging Board", user));
+
+        // Every note shares one timestamp so the id tie-breaker is exercised
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 12, 0);
+        List<Note> notes = new ArrayList<>();
+        for (int i = 0; i < NOTE_COUNT; i++) {
+            Note note = new Note("Note " + (char) ('a' + (i * 7) % NOTE_COUNT), "content", 0.0, 0.0);
+            note.setCreatedAt(createdAt);
+            note.setUser(user);
+            note.setBoard(board);
+            notes.add(note);
+        }
+        noteRepository.saveAll(notes);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testPagesCoverEveryNoteExactlyOnceInOrder() {
+        List<NoteView> seen = readAll(NoteSort.CREATED_AT, false, 10);
+
+        assertEquals(NOTE_COUNT, seen.size());
+        for (int i = 1; i < seen.size(); i++) {
+            assertTrue(seen.get(i - 1).id() < seen.get(i).id());
+        }
+    }
+
+    @Test
+    void testTitleSortDescending() {
+        List<NoteView> seen = readAll(NoteSort.TITLE, true, 7);
+
+        assertEquals(NOTE_COUNT, seen.size());
+        for (int i = 1; i < seen.size(); i++) {
+            assertTrue(seen.get(i - 1).title().compareTo(seen.get(i).title()) >= 0);
+        }
+    }
+
+    @Test
+    void testLastPageHasNoCursor() {
+        NotePage page = noteService.getNotePage(user, NoteSort.CREATED_AT, false, null, NOTE_COUNT);
+
+        assertEquals(NOTE_COUNT, page.items().size());
+        assertNull(page.nextCursor());
+    }
+
+    private List<NoteView> readAll(NoteSort sort, boolean descending, int limit) {
+        List<NoteView> seen = new ArrayList<>();
+        NoteCursor cursor = null;
+        do {
+            NotePage page = noteService.getNotePage(user, sort, descending, cursor, limit);
+            assertTrue(page.items().size() <= limit);
+            seen.addAll(page.items());
+            cursor = page.nextCursor() != null ? NoteCursor.decode(page.nextCursor()) : null;
+        } while (cursor != null);
+        return seen;
+    }
+}
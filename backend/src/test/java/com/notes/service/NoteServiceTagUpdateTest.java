@@ -0,0 +1,100 @@
+package com.notes.service;
+
+import com.notes.entity.Board;
+import com.notes.entity.Note;
+import com.notes.entity.User;
+import com.notes.repository.BoardRepository;
+import com.notes.repository.NoteRepository;
+import com.notes.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+public class NoteServiceTagUpdateTest {
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BoardRepository boardRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User user;
+    private Long noteId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        user = userRepository.save(new User("tag-diff@example.com", "encoded"));
+        Board board = boardRepository.save(new Board("Tag Board", user));
+
+        Note note = new Note("Tagged", "content", 10.0, 20.0);
+        note.setUser(user);
+        note.setBoard(board);
+        note.setTags(List.of("work", "urgent"));
+        noteId = noteRepository.save(note).getId();
+
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    @Test
+    void testUnchangedTagsProduceNoTagStatements() {
+        noteService.updateNote(noteId, details(List.of("urgent", "work")), user);
+        entityManager.flush();
+
+        // select note + select its tags + the note row itself for its new change_seq, no tag statements
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getCollectionUpdateCount());
+        assertEquals(0, statistics.getCollectionRecreateCount());
+        assertEquals(0, statistics.getCollectionRemoveCount());
+    }
+
+    @Test
+    void testChangedTagsOnlyWriteTheDifference() {
+        noteService.updateNote(noteId, details(List.of("work", "home", "later")), user);
+        entityManager.flush();
+
+        // select note + select tags + update note + one batched delete ("urgent") + one batched insert ("home", "later")
+        assertEquals(5, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getCollectionUpdateCount());
+        assertEquals(0, statistics.getCollectionRecreateCount());
+
+        entityManager.clear();
+        Note reloaded = noteRepository.findById(noteId).orElseThrow();
+        assertEquals(Set.of("work", "home", "later"), reloaded.getTags());
+    }
+
+    private Note details(List<String> tags) {
+        Note details = new Note("Tagged", "content", 10.0, 20.0);
+        details.setTags(tags);
+        return details;
+    }
+}
@@ -0,0 +1,54 @@
+package com.notes.service;
+
+import com.notes.dto.NoteGeometryRequest;
+import com.notes.repository.NoteViewRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class NoteSpatialIndexCacheTest {
+
+    private static final long BOARD = 10L;
+    private static final long OWNER = 7L;
+    private static final long OTHER_USER = 8L;
+
+    private NoteSpatialIndexCache cache;
+
+    @BeforeEach
+    void setUp() {
+        NoteViewRepository noteViewRepository = mock(NoteViewRepository.class);
+        doAnswer(invocation -> {
+            invocation.<NoteViewRepository.GeometryConsumer>getArgument(2).accept(1L, 0, 0, 300, 300);
+            return null;
+        }).when(noteViewRepository).forEachGeometryOnBoard(eq(BOARD), eq(OWNER), any());
+        cache = new NoteSpatialIndexCache(noteViewRepository, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "cellSize", 1024.0);
+        ReflectionTestUtils.setField(cache, "maxBoards", 100);
+    }
+
+    @Test
+    void testMoveByAnotherUserLeavesOwnersIndexUnchanged() {
+        assertArrayEquals(new long[] {1}, cache.query(BOARD, OWNER, 0, 0, 100, 100));
+
+        cache.geometryChanged(1L, OTHER_USER, new NoteGeometryRequest(5000.0, 5000.0, null, null));
+
+        assertArrayEquals(new long[] {1}, cache.query(BOARD, OWNER, 0, 0, 100, 100));
+        assertArrayEquals(new long[] {}, cache.query(BOARD, OWNER, 5000, 5000, 5100, 5100));
+    }
+
+    @Test
+    void testMoveByOwnerUpdatesIndex() {
+        cache.query(BOARD, OWNER, 0, 0, 100, 100);
+
+        cache.geometryChanged(1L, OWNER, new NoteGeometryRequest(5000.0, 5000.0, null, null));
+
+        assertArrayEquals(new long[] {}, cache.query(BOARD, OWNER, 0, 0, 100, 100));
+        assertArrayEquals(new long[] {1}, cache.query(BOARD, OWNER, 5000, 5000, 5100, 5100));
+    }
+}
@@ -0,0 +1,119 @@
+package com.notes.service;
+
+import com.notes.entity.User;
+import com.notes.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class UserOnboardingWorkerTest {
+
+    private DemoUserService demoUserService;
+    private UserRepository userRepository;
+    private UserOnboardingWorker worker;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        demoUserService = mock(DemoUserService.class);
+        userRepository = mock(UserRepository.class);
+        user = new User("onboarding@example.com", "encoded");
+        user.setId(42L);
+        when(userRepository.findById(42L)).thenReturn(Optional.of(user));
+
+        worker = new UserOnboardingWorker(demoUserService, userRepository, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(worker, "workerThreads", 1);
+        ReflectionTestUtils.setField(worker, "queueCapacity", 10);
+        ReflectionTestUtils.setField(worker, "maxAttempts", 3);
+        ReflectionTestUtils.setField(worker, "retryBackoffMs", 1L);
+        worker.init();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        worker.shutdown();
+    }
+
+    @Test
+    void testFailedSeedingIsRetried() {
+        doThrow(new RuntimeException("connection reset"))
+                .doNothing()
+                .when(demoUserService).initializeUserData(any(User.class));
+
+        worker.onUserRegistered(new UserRegisteredEvent(42L, user.getEmail(), System.currentTimeMillis()));
+
+        verify(demoUserService, timeout(2000).times(2)).initializeUserData(user);
+    }
+
+    @Test
+    void testDuplicateEventWhileInFlightIsIgnored() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(2, TimeUnit.SECONDS);
+            return null;
+        }).when(demoUserService).initializeUserData(any(User.class));
+
+        UserRegisteredEvent event = new UserRegisteredEvent(42L, user.getEmail(), System.currentTimeMillis());
+        worker.onUserRegistered(event);
+        worker.onUserRegistered(event);
+        release.countDown();
+
+        verify(demoUserService, timeout(2000).times(1)).initializeUserData(user);
+        Thread.sleep(50);
+        verify(demoUserService, times(1)).initializeUserData(user);
+        assertEquals(0, worker.getQueueDepth());
+    }
+
+    @Test
+    void testRetryWaitsForRoomInsteadOfRunningOnTheSchedulerThread() throws InterruptedException {
+        ReflectionTestUtils.setField(worker, "retryBackoffMs", 50L);
+        worker.shutdown();
+        ReflectionTestUtils.setField(worker, "queueCapacity", 1);
+        worker.init();
+        User busy = new User("busy@example.com", "encoded");
+        busy.setId(43L);
+        User queued = new User("queued@example.com", "encoded");
+        queued.setId(44L);
+        when(userRepository.findById(43L)).thenReturn(Optional.of(busy));
+        when(userRepository.findById(44L)).thenReturn(Optional.of(queued));
+
+        List<String> threads = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger failures = new AtomicInteger();
+        doAnswer(invocation -> {
+            User seeded = invocation.getArgument(0);
+            threads.add(Thread.currentThread().getName());
+            if (seeded.getId() == 42L && failures.getAndIncrement() == 0) {
+                throw new RuntimeException("connection reset");
+            }
+            if (seeded.getId() == 43L) {
+                release.await(2, TimeUnit.SECONDS);
+            }
+            return null;
+        }).when(demoUserService).initializeUserData(any(User.class));
+
+        worker.onUserRegistered(new UserRegisteredEvent(42L, user.getEmail(), System.currentTimeMillis()));
+        verify(demoUserService, timeout(2000).times(1)).initializeUserData(user);
+        // Keep the only worker busy and the queue full while the retry comes due
+        worker.onUserRegistered(new UserRegisteredEvent(43L, busy.getEmail(), System.currentTimeMillis()));
+        worker.onUserRegistered(new UserRegisteredEvent(44L, queued.getEmail(), System.currentTimeMillis()));
+        Thread.sleep(200);
+        release.countDown();
+
+        verify(demoUserService, timeout(2000).times(2)).initializeUserData(user);
+        assertFalse(threads.contains("onboarding-retry"));
+    }
+}
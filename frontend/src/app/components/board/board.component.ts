@@ -1225,16 +1225,17 @@ export class BoardComponent implements OnInit, OnDestroy {
       this.applyFilters();
     }
 
+    // The server moves the note to the nearest free spot around this position
     const newNote: Note = {
       title: '',
       content: '',
-      positionX: 50 + (this.notes.length * 30) % 200,
-      positionY: 50 + (this.notes.length * 30) % 200,
+      positionX: 50,
+      positionY: 50,
       color: '#fef3c7',
       tags: []
     };
 
-    this.noteService.createNote(newNote, this.selectedBoard.id!).subscribe({
+    this.noteService.createNote(newNote, this.selectedBoard.id!, true).subscribe({
       next: (note) => {
         this.notes.push(note);
         this.filteredNotes = [...this.notes];
@@ -1289,7 +1290,7 @@ export class BoardComponent implements OnInit, OnDestroy {
     if (note) {
       note.positionX = event.x;
       note.positionY = event.y;
-      this.updateNote(note);
+      this.updateNoteGeometry(event.id, { positionX: event.x, positionY: event.y });
     }
   }
 
@@ -1298,10 +1299,22 @@ export class BoardComponent implements OnInit, OnDestroy {
     if (note) {
       note.width = event.width;
       note.height = event.height;
-      this.updateNote(note);
+      this.updateNoteGeometry(event.id, { width: event.width, height: event.height });
     }
   }
 
+  private updateNoteGeometry(id: number, geometry: { positionX?: number; positionY?: number; width?: number; height?: number }) {
+    this.noteService.updateNoteGeometry(id, geometry).subscribe({
+      next: () => {
+        // Update localStorage after note move or resize
+        this.saveNotesToLocalStorage();
+      },
+      error: (error) => {
+        console.error('Error updating note geometry:', error);
+      }
+    });
+  }
+
   trackByNoteId(index: number, note: Note): number {
     return note.id || index;
   }
@@ -1,32 +1,52 @@
-import { HttpInterceptorFn, HttpErrorResponse } from '@angular/common/http';
+import { HttpInterceptorFn, HttpErrorResponse, HttpRequest } from '@angular/common/http';
 import { inject } from '@angular/core';
 import { Router } from '@angular/router';
-import { catchError, throwError } from 'rxjs';
+import { catchError, switchMap, throwError } from 'rxjs';
 import { AuthService } from '../services/auth.service';
 
+const withToken = (req: HttpRequest<unknown>, token: string | null): HttpRequest<unknown> =>
+  token ? req.clone({ setHeaders: { Authorization: `Bearer ${token}` } }) : req;
+
 export const authInterceptor: HttpInterceptorFn = (req, next) => {
   const authService = inject(AuthService);
   const router = inject(Router);
   
-  const token = authService.getToken();
+  const isAuthCall = req.url.includes('/api/auth/');
   
-  if (token) {
-    req = req.clone({
-      setHeaders: {
-        Authorization: `Bearer ${token}`
-      }
+  const logoutAndRedirect = () => {
+    authService.logout().subscribe(() => {
+      router.navigate(['/login']);
     });
-  }
+  };
+  
+  const sentToken = authService.getToken();
   
-  return next(req).pipe(
+  return next(withToken(req, sentToken)).pipe(
     catchError((error: HttpErrorResponse) => {
-      if (error.status === 401) {
+      if (error.status !== 401 || isAuthCall) {
+        return throwError(() => error);
+      }
+      
+      if (!authService.hasRefreshToken()) {
         // Token expired or invalid, logout and redirect to login
-        authService.logout().subscribe(() => {
-          router.navigate(['/login']);
-        });
+        logoutAndRedirect();
+        return throwError(() => error);
+      }
+      
+      // Another request already refreshed the token while this one was in flight: just retry
+      const currentToken = authService.getToken();
+      if (currentToken && currentToken !== sentToken) {
+        return next(withToken(req, currentToken));
       }
-      return throwError(() => error);
+      
+      // Access token expired: wait for the (shared) refresh and retry once
+      return authService.refresh().pipe(
+        switchMap(response => next(withToken(req, response.token))),
+        catchError(refreshError => {
+          logoutAndRedirect();
+          return throwError(() => refreshError);
+        })
+      );
     })
   );
 };
@@ -2,4 +2,25 @@ export interface Board {
   id?: number;
   name: string;
   createdAt?: string;
+  noteCount?: number;
+  lastModifiedAt?: string;
+}
+
+export interface OverviewTile {
+  column: number;
+  row: number;
+  noteCount: number;
+  dominantColor: string | null;
+  minX: number;
+  minY: number;
+  maxX: number;
+  maxY: number;
+}
+
+export interface BoardOverview {
+  boardId: number;
+  version: number;
+  zoom: number;
+  gridSize: number;
+  tiles: OverviewTile[];
 }
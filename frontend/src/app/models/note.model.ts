@@ -13,3 +13,31 @@ export interface Note {
   reminderTriggered?: boolean;
   boardId?: number;
 }
+
+export interface NotePage {
+  items: Note[];
+  nextCursor: string | null;
+}
+
+export interface ChangedBoard {
+  id: number;
+  name: string;
+  createdAt: string;
+  updatedAt: string;
+}
+
+export interface Tombstone {
+  type: 'NOTE' | 'BOARD';
+  id: number;
+  boardId: number | null;
+  deletedAt: string;
+}
+
+export interface NoteChanges {
+  boards: ChangedBoard[];
+  notes: Note[];
+  deleted: Tombstone[];
+  cursor: string;
+  hasMore: boolean;
+  reset: boolean;
+}
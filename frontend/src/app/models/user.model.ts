@@ -9,6 +9,7 @@ export interface LoginRequest {
 
 export interface LoginResponse {
   token: string;
+  refreshToken?: string;
   type: string;
   email: string;
   message: string;
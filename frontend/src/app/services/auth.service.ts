@@ -1,7 +1,7 @@
 import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
-import { BehaviorSubject, Observable, of } from 'rxjs';
-import { map, catchError, tap } from 'rxjs/operators';
+import { BehaviorSubject, Observable, of, throwError } from 'rxjs';
+import { map, catchError, tap, finalize, shareReplay } from 'rxjs/operators';
 import { LoginRequest, LoginResponse, RegisterRequest, RegisterResponse, User } from '../models/user.model';
 
 
@@ -11,6 +11,7 @@ import { LoginRequest, LoginResponse, RegisterRequest, RegisterResponse, User }
 export class AuthService {
   private apiUrl = 'http://localhost:8080/api/auth';
   private tokenKey = 'auth_token';
+  private refreshTokenKey = 'auth_refresh_token';
   private userKey = 'auth_user';
   
   private isAuthenticatedSubject = new BehaviorSubject<boolean>(this.hasToken());
@@ -19,6 +20,9 @@ export class AuthService {
   private currentUserSubject = new BehaviorSubject<User | null>(this.getStoredUser());
   public currentUser$ = this.currentUserSubject.asObservable();
 
+  // The refresh in progress, shared by every request that got a 401 meanwhile
+  private refreshInFlight$: Observable<LoginResponse> | null = null;
+
   constructor(private http: HttpClient) {}
 
   login(credentials: LoginRequest): Observable<LoginResponse> {
@@ -26,6 +30,7 @@ export class AuthService {
       .pipe(
         tap(response => {
           this.setToken(response.token);
+          this.setRefreshToken(response.refreshToken);
           const user: User = { email: response.email };
           this.setUser(user);
           this.isAuthenticatedSubject.next(true);
@@ -34,8 +39,36 @@ export class AuthService {
       );
   }
 
+  /**
+   * Exchange the stored refresh token for a new access token (the refresh token is rotated too).
+   * Concurrent callers share one request: the backend treats a second use of the same
+   * refresh token as theft and revokes the whole session.
+   */
+  refresh(): Observable<LoginResponse> {
+    if (this.refreshInFlight$) {
+      return this.refreshInFlight$;
+    }
+    const refreshToken = localStorage.getItem(this.refreshTokenKey);
+    if (!refreshToken) {
+      return throwError(() => new Error('No refresh token'));
+    }
+    this.refreshInFlight$ = this.http.post<LoginResponse>(`${this.apiUrl}/refresh`, { refreshToken })
+      .pipe(
+        tap(response => {
+          this.setToken(response.token);
+          this.setRefreshToken(response.refreshToken);
+        }),
+        finalize(() => {
+          this.refreshInFlight$ = null;
+        }),
+        shareReplay({ bufferSize: 1, refCount: false })
+      );
+    return this.refreshInFlight$;
+  }
+
   logout(): Observable<any> {
-    return this.http.post(`${this.apiUrl}/logout`, {}).pipe(
+    const refreshToken = localStorage.getItem(this.refreshTokenKey);
+    return this.http.post(`${this.apiUrl}/logout`, refreshToken ? { refreshToken } : {}).pipe(
       tap(() => {
         this.clearAuth();
       }),
@@ -53,6 +86,7 @@ export class AuthService {
 
   private clearAuth(): void {
     localStorage.removeItem(this.tokenKey);
+    localStorage.removeItem(this.refreshTokenKey);
     localStorage.removeItem(this.userKey);
     this.isAuthenticatedSubject.next(false);
     this.currentUserSubject.next(null);
@@ -66,6 +100,18 @@ export class AuthService {
     localStorage.setItem(this.tokenKey, token);
   }
 
+  private setRefreshToken(refreshToken?: string): void {
+    if (refreshToken) {
+      localStorage.setItem(this.refreshTokenKey, refreshToken);
+    } else {
+      localStorage.removeItem(this.refreshTokenKey);
+    }
+  }
+
+  hasRefreshToken(): boolean {
+    return !!localStorage.getItem(this.refreshTokenKey);
+  }
+
   private setUser(user: User): void {
     localStorage.setItem(this.userKey, JSON.stringify(user));
   }
@@ -1,7 +1,7 @@
 import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
 import { Observable } from 'rxjs';
-import { Board } from '../models/board.model';
+import { Board, BoardOverview } from '../models/board.model';
 
 @Injectable({
   providedIn: 'root'
@@ -21,6 +21,10 @@ export class BoardService {
     return this.http.get<Board>(`${this.apiUrl}/${id}`);
   }
 
+  getBoardOverview(id: number, zoom: number): Observable<BoardOverview> {
+    return this.http.get<BoardOverview>(`${this.apiUrl}/${id}/overview`, { params: { zoom } });
+  }
+
   createBoard(name: string): Observable<Board> {
     return this.http.post<Board>(this.apiUrl, { name });
   }
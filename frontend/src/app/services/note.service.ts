@@ -1,7 +1,8 @@
 import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
-import { Observable } from 'rxjs';
-import { Note } from '../models/note.model';
+import { EMPTY, Observable } from 'rxjs';
+import { expand, map, reduce } from 'rxjs/operators';
+import { Note, NoteChanges, NotePage } from '../models/note.model';
 
 @Injectable({
   providedIn: 'root'
@@ -14,28 +15,80 @@ export class NoteService {
   constructor(private http: HttpClient) { }
 
   getAllNotes(boardId?: number): Observable<Note[]> {
-    const url = boardId ? `${this.apiUrl}?boardId=${boardId}` : this.apiUrl;
-    return this.http.get<Note[]>(url);
+    if (!boardId) {
+      return this.getAllNotesForUser();
+    }
+    return this.http.get<Note[]>(`${this.apiUrl}?boardId=${boardId}`);
   }
 
+  /**
+   * Notes of the board intersecting the given canvas region
+   */
+  getNotesInViewport(boardId: number, minX: number, minY: number, maxX: number, maxY: number): Observable<Note[]> {
+    return this.http.get<Note[]>(
+      `${this.apiUrl}?boardId=${boardId}&minX=${minX}&minY=${minY}&maxX=${maxX}&maxY=${maxY}`);
+  }
+
+  getNotePage(cursor?: string | null, limit = 200): Observable<NotePage> {
+    const cursorParam = cursor ? `&cursor=${encodeURIComponent(cursor)}` : '';
+    return this.http.get<NotePage>(`${this.apiUrl}/all?limit=${limit}${cursorParam}`);
+  }
+
+  /**
+   * All notes of the user, fetched page by page with the keyset cursor
+   */
   getAllNotesForUser(): Observable<Note[]> {
-    return this.http.get<Note[]>(`${this.apiUrl}/all`);
+    return this.getNotePage().pipe(
+      expand(page => page.nextCursor ? this.getNotePage(page.nextCursor) : EMPTY),
+      map(page => page.items),
+      reduce((all, items) => all.concat(items), [] as Note[])
+    );
+  }
+
+  /**
+   * Boards, notes and deletions changed since the cursor of the previous call
+   */
+  getChanges(since?: string | null, limit = 500): Observable<NoteChanges> {
+    const sinceParam = since ? `&since=${encodeURIComponent(since)}` : '';
+    return this.http.get<NoteChanges>(`${this.apiUrl}/changes?limit=${limit}${sinceParam}`);
+  }
+
+  /**
+   * Every page of changes since the cursor, up to the current end of the feed
+   */
+  getAllChanges(since?: string | null): Observable<NoteChanges> {
+    return this.getChanges(since).pipe(
+      expand(page => page.hasMore ? this.getChanges(page.cursor) : EMPTY)
+    );
   }
 
   getNoteById(id: number): Observable<Note> {
     return this.http.get<Note>(`${this.apiUrl}/${id}`);
   }
 
-  createNote(note: Note, boardId: number): Observable<Note> {
-    const noteWithBoardId = { ...note, boardId };
+  createNote(note: Note, boardId: number, autoPlace = false): Observable<Note> {
+    const noteWithBoardId = autoPlace ? { ...note, boardId, position: 'auto' } : { ...note, boardId };
     return this.http.post<Note>(this.apiUrl, noteWithBoardId);
   }
 
+  searchNotes(query: string, boardId?: number, limit = 50): Observable<Note[]> {
+    const boardParam = boardId != null ? `&boardId=${boardId}` : '';
+    return this.http.get<Note[]>(`${this.apiUrl}/search?q=${encodeURIComponent(query)}&limit=${limit}${boardParam}`);
+  }
+
+  tidyUpBoard(boardId: number): Observable<Note[]> {
+    return this.http.post<Note[]>(`${this.apiUrl}/tidy?boardId=${boardId}`, null);
+  }
+
 
   updateNote(id: number, note: Note): Observable<Note> {
     return this.http.put<Note>(`${this.apiUrl}/${id}`, note);
   }
 
+  updateNoteGeometry(id: number, geometry: { positionX?: number; positionY?: number; width?: number; height?: number }): Observable<void> {
+    return this.http.patch<void>(`${this.apiUrl}/${id}/geometry`, geometry);
+  }
+
   deleteNote(id: number): Observable<void> {
     return this.http.delete<void>(`${this.apiUrl}/${id}`);
   }
@@ -43,4 +96,13 @@ export class NoteService {
   getNotesByTag(tag: string): Observable<Note[]> {
     return this.http.get<Note[]>(`${this.apiUrl}/filter?tag=${encodeURIComponent(tag)}`);
   }
+
+  getNotesByTags(tags: string[], match: 'any' | 'all' = 'any', boardId?: number): Observable<Note[]> {
+    const params = tags.map(tag => `tags=${encodeURIComponent(tag)}`);
+    params.push(`match=${match}`);
+    if (boardId) {
+      params.push(`boardId=${boardId}`);
+    }
+    return this.http.get<Note[]>(`${this.apiUrl}/filter?${params.join('&')}`);
+  }
 }
@@ -1,6 +1,6 @@
 import { Injectable } from '@angular/core';
 import { Subject } from 'rxjs';
-import { Note } from '../models/note.model';
+import { Note, NoteChanges } from '../models/note.model';
 import { NoteService } from './note.service';
 
 @Injectable({
@@ -19,6 +19,10 @@ export class ReminderService {
   // Store all notes across all boards for global reminder checking
   private allNotes: Note[] = [];
 
+  // Delta sync state: notes by id and the change feed cursor they are current up to
+  private notesById = new Map<number, Note>();
+  private syncCursor: string | null = null;
+
 
   constructor(private noteService: NoteService) {
     this.loadRemindersFromStorage();
@@ -45,6 +49,9 @@ export class ReminderService {
     if (this.checkInterval) {
       clearInterval(this.checkInterval);
     }
+    // The next user starts from a full sync
+    this.notesById.clear();
+    this.syncCursor = null;
   }
 
   /**
@@ -295,9 +302,11 @@ export class ReminderService {
    * Load all notes from all boards for global reminder checking
    */
   public loadAllNotesForReminders(): void {
-    this.noteService.getAllNotesForUser().subscribe({
-      next: (notes) => {
-        this.allNotes = notes;
+    // Only what changed since the last load is fetched; the first load is a full sync
+    this.noteService.getAllChanges(this.syncCursor).subscribe({
+      next: (changes) => this.applyChanges(changes),
+      complete: () => {
+        this.allNotes = Array.from(this.notesById.values());
         // Check reminders immediately after loading
         this.checkReminders();
         // Notify that reminder state may have changed
@@ -309,6 +318,26 @@ export class ReminderService {
     });
   }
 
+  private applyChanges(changes: NoteChanges): void {
+    if (changes.reset) {
+      this.notesById.clear();
+    }
+    changes.notes.forEach(note => this.notesById.set(note.id!, note));
+    changes.deleted.forEach(tombstone => {
+      if (tombstone.type === 'BOARD') {
+        // A deleted board takes its notes with it
+        this.notesById.forEach((note, id) => {
+          if (note.boardId === tombstone.id) {
+            this.notesById.delete(id);
+          }
+        });
+      } else {
+        this.notesById.delete(tombstone.id);
+      }
+    });
+    this.syncCursor = changes.cursor;
+  }
+
   /**
    * Check if a specific board has any triggered reminders
    */